@@ -13,7 +13,7 @@ import java.util.logging.Logger;
  * A basic, bare-bones implementation of a {@link DataSource} which provides connection from a username, password, and database URL.
  * <br/>
  * This data source makes calls directly to the {@link DriverManager}, so no connection pooling will take place. Therefore, this data source
- * should only be used for initial development
+ * should only be used for initial development, or wrapped in a {@link PooledDataSource}
  */
 public class BasicDataSource implements DataSource {
 
@@ -0,0 +1,189 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds parameter batches to prepared statements for one compiled SQL statement and one parameter type signature, which
+ * is the class of the values bound to each parameter.
+ * <br/><br/>
+ * Converters are resolved once when the plan is created, so binding a batch is a loop over its parameters with no
+ * registry lookups. The plan records the converter snapshot of the registry it was resolved from, so that it is replaced
+ * once a converter is registered. Integer, Long, Double and Boolean parameters bound with their built-in converters are
+ * set with setInt, setLong, setDouble and setBoolean straight from the unboxed values held by the parameter batches.
+ * <br/><br/>
+ * Null values are bound with {@link PreparedStatement#setNull} using an SQL type derived from the parameter's signature
+ * class, rather than with setObject(index, null), which makes some drivers fetch parameter metadata from the database to
+ * discover the type. Where no SQL type can be derived, for instance for a parameter only ever bound null, setObject(index,
+ * null) is still used, since several drivers reject setNull with {@link Types#NULL}
+ */
+final class BindingPlan {
+
+	/** SQL types to bind nulls with, by the class of the values bound to the same parameter */
+	private static final Map<Class<?>, Integer> NULL_TYPES = new HashMap<>();
+	static {
+		NULL_TYPES.put(Byte.class, Types.TINYINT);
+		NULL_TYPES.put(Short.class, Types.SMALLINT);
+		NULL_TYPES.put(Integer.class, Types.INTEGER);
+		NULL_TYPES.put(Long.class, Types.BIGINT);
+		NULL_TYPES.put(Float.class, Types.FLOAT);
+		NULL_TYPES.put(Double.class, Types.DOUBLE);
+		NULL_TYPES.put(Boolean.class, Types.BOOLEAN);
+		NULL_TYPES.put(Character.class, Types.CHAR);
+		NULL_TYPES.put(String.class, Types.VARCHAR);
+		NULL_TYPES.put(BigInteger.class, Types.BIGINT);
+		NULL_TYPES.put(BigDecimal.class, Types.DECIMAL);
+		NULL_TYPES.put(LocalDate.class, Types.DATE);
+		NULL_TYPES.put(LocalTime.class, Types.TIME);
+		NULL_TYPES.put(LocalDateTime.class, Types.TIMESTAMP);
+		NULL_TYPES.put(java.sql.Date.class, Types.DATE);
+		NULL_TYPES.put(java.sql.Time.class, Types.TIME);
+		NULL_TYPES.put(java.sql.Timestamp.class, Types.TIMESTAMP);
+		NULL_TYPES.put(java.util.Date.class, Types.TIMESTAMP);
+		NULL_TYPES.put(byte[].class, Types.VARBINARY);
+	}
+
+	private final ConversionRegistry conversionRegistry;
+
+	/** The converter snapshot of the registry when this plan's converters were resolved */
+	private final Object converterSnapshot;
+
+	/** Class of the values bound to each parameter, by 0-based parameter index. Null where there is no single such class */
+	private final Class<?>[] parameterTypes;
+
+	/** Converter for each parameter's values, by 0-based parameter index */
+	private final SQLConverter[] converters;
+
+	/** SQL type to bind nulls with for each parameter, by 0-based parameter index. {@link Types#NULL} if there is none */
+	private final int[] nullTypes;
+
+	/** How to set each parameter's non-null values, by 0-based parameter index */
+	private final Setter[] setters;
+
+	/**
+	 * How non-null values of a parameter are set. Integer, Long, Double and Boolean values written by their built-in
+	 * converter are read unboxed from the parameter batches and set with the matching primitive setter
+	 */
+	private enum Setter { CONVERTER, INT, LONG, DOUBLE, BOOLEAN }
+
+	BindingPlan(Class<?>[] parameterTypes, ConversionRegistry conversionRegistry) {
+		this.conversionRegistry = conversionRegistry;
+		this.converterSnapshot = conversionRegistry.getConverterSnapshot();
+		this.parameterTypes = parameterTypes;
+		this.converters = new SQLConverter[parameterTypes.length];
+		this.nullTypes = new int[parameterTypes.length];
+		this.setters = new Setter[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Class<?> type = parameterTypes[i];
+			converters[i] = type == null ? null : conversionRegistry.getConverter(type);
+			nullTypes[i] = nullTypeFor(type);
+			setters[i] = setterFor(type, converters[i]);
+		}
+	}
+
+	/**
+	 * Whether this plan was resolved from the given registry, and no converter has been registered since
+	 */
+	boolean isCurrentFor(ConversionRegistry registry) {
+		return registry == conversionRegistry && registry.getConverterSnapshot() == converterSnapshot;
+	}
+
+	/**
+	 * Returns whether this plan was resolved from the given registry, regardless of converters registered since
+	 */
+	boolean isResolvedFrom(ConversionRegistry registry) {
+		return registry == conversionRegistry;
+	}
+
+	/**
+	 * Sets each parameter of the given batch on the given statement. Values whose class differs from this plan's signature
+	 * are still bound correctly, with their converter looked up from the registry
+	 */
+	void bind(PreparedStatement ps, ParameterBatchBuffer paramBatches, int batch) throws SQLException {
+		bind(ps, paramBatches, batch, 0);
+	}
+
+	/**
+	 * Sets each parameter of the given batch on the given statement, offsetting the statement parameter indices by the given
+	 * number. Used to bind several batches to the rows of one multi-row statement
+	 */
+	@SuppressWarnings("unchecked")
+	void bind(PreparedStatement ps, ParameterBatchBuffer paramBatches, int batch, int parameterOffset) throws SQLException {
+		for (int i = 0; i < parameterTypes.length; i++) {
+			int paramIndex = parameterOffset + i + 1;
+			if (paramBatches.isNull(batch, i)) {
+				if (nullTypes[i] == Types.NULL) {
+					ps.setObject(paramIndex, null);
+				} else {
+					ps.setNull(paramIndex, nullTypes[i]);
+				}
+				continue;
+			}
+
+			Setter setter = paramBatches.getValueClass(i) == parameterTypes[i] ? setters[i] : Setter.CONVERTER;
+			switch (setter) {
+				case INT:
+					ps.setInt(paramIndex, paramBatches.getInt(batch, i));
+					continue;
+				case LONG:
+					ps.setLong(paramIndex, paramBatches.getLong(batch, i));
+					continue;
+				case DOUBLE:
+					ps.setDouble(paramIndex, paramBatches.getDouble(batch, i));
+					continue;
+				case BOOLEAN:
+					ps.setBoolean(paramIndex, paramBatches.getBoolean(batch, i));
+					continue;
+				default:
+					break;
+			}
+
+			Object value = paramBatches.get(batch, i);
+			if (value.getClass() == parameterTypes[i]) {
+				converters[i].write(ps, paramIndex, value);
+			}
+			else {
+				conversionRegistry.getConverter((Class<Object>) value.getClass()).write(ps, paramIndex, value);
+			}
+		}
+	}
+
+	private static Setter setterFor(Class<?> type, SQLConverter<?> converter) {
+		if (converter == null || !ConversionRegistry.writesWithPrimitiveSetter(converter)) {
+			return Setter.CONVERTER;
+		}
+		if (type == Integer.class) {
+			return Setter.INT;
+		}
+		if (type == Long.class) {
+			return Setter.LONG;
+		}
+		if (type == Double.class) {
+			return Setter.DOUBLE;
+		}
+		return type == Boolean.class ? Setter.BOOLEAN : Setter.CONVERTER;
+	}
+
+	private static int nullTypeFor(Class<?> type) {
+		if (type == null) {
+			return Types.NULL;
+		}
+		Integer nullType = NULL_TYPES.get(type);
+		if (nullType != null) {
+			return nullType;
+		}
+		return Enum.class.isAssignableFrom(type) ? Types.VARCHAR : Types.NULL;
+	}
+
+}
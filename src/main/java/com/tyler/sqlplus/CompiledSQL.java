@@ -0,0 +1,251 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.exception.QueryStructureException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, parsed form of a raw SQL string. Holds the SQL with all parameter labels replaced by '?' along with the
+ * mapping of parameter labels to their ordinal indices.
+ * <br/><br/>
+ * Compiled SQL objects are cached process-wide by raw SQL string, so parsing is only done once per distinct query
+ */
+public final class CompiledSQL {
+
+	/**
+	 * Upper bound on the number of cached entries. Applications which build SQL strings dynamically could otherwise grow
+	 * this cache without limit; once full, SQL is still compiled but no longer cached
+	 */
+	static final int MAX_CACHE_SIZE = 10_000;
+
+	private static final Map<String, CompiledSQL> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Upper bound on the number of binding plans of each kind cached per compiled SQL. Most statements are only ever bound
+	 * with a single parameter type signature, and from objects of a single class
+	 */
+	static final int MAX_BINDING_PLANS = 16;
+
+	private final String sql;
+	private final String formattedSQL;
+	private final Map<String, Integer> paramLabel_paramIndex;
+
+	/** Binding plans for this SQL by parameter type signature */
+	private final Map<List<Class<?>>, BindingPlan> bindingPlans = new ConcurrentHashMap<>();
+
+	/** Plans for binding objects to the parameters of this SQL, by the runtime class of the bound objects */
+	private final Map<Class<?>, ObjectBindingPlan> objectBindingPlans = new ConcurrentHashMap<>();
+
+	/** Multi-row insert template for this SQL, or empty if it cannot be rewritten as one. Null until first requested */
+	private volatile Optional<MultiRowInsert> multiRowInsert;
+
+	private CompiledSQL(String sql, String formattedSQL, Map<String, Integer> paramLabel_paramIndex) {
+		this.sql = sql;
+		this.formattedSQL = formattedSQL;
+		this.paramLabel_paramIndex = Collections.unmodifiableMap(paramLabel_paramIndex);
+	}
+
+	/**
+	 * Returns the compiled form of the given SQL, parsing it only if it has not been compiled before
+	 * @throws QueryStructureException If the SQL contains duplicate parameter labels
+	 */
+	public static CompiledSQL compile(String sql) {
+		CompiledSQL compiled = CACHE.get(sql);
+		if (compiled == null) {
+			compiled = parse(sql);
+			if (CACHE.size() < MAX_CACHE_SIZE) {
+				CACHE.putIfAbsent(sql, compiled);
+			}
+		}
+		return compiled;
+	}
+
+	/**
+	 * The raw SQL this object was compiled from
+	 */
+	public String getSQL() {
+		return sql;
+	}
+
+	/**
+	 * The SQL with all parameter labels replaced with '?'
+	 */
+	public String getFormattedSQL() {
+		return formattedSQL;
+	}
+
+	/**
+	 * A mapping of parameter labels to the 1-based index at which they appear in the SQL.
+	 * <br/>
+	 * For any '?' params, the key will be equal to the string value of the index. For example, for the query
+	 * 'select fieldA from table1 where fieldA = ? and fieldB = ?', a mapping would be produced with the keys
+	 * "1" and "2" and the values 1 and 2.
+	 */
+	public Map<String, Integer> getParamIndices() {
+		return paramLabel_paramIndex;
+	}
+
+	public int getParameterCount() {
+		return paramLabel_paramIndex.size();
+	}
+
+	/**
+	 * Returns the plan for binding parameters with the given type signature to statements of this SQL, creating it only
+	 * if none has been cached for the signature and conversion registry yet. A cached plan is replaced once a converter has
+	 * been registered on the registry since it was created
+	 */
+	BindingPlan getBindingPlan(Class<?>[] signature, ConversionRegistry conversionRegistry) {
+		List<Class<?>> key = Arrays.asList(signature);
+		BindingPlan cached = bindingPlans.get(key);
+		if (cached != null && cached.isCurrentFor(conversionRegistry)) {
+			return cached;
+		}
+		BindingPlan plan = new BindingPlan(signature, conversionRegistry);
+		if (cached == null) {
+			if (bindingPlans.size() < MAX_BINDING_PLANS) {
+				bindingPlans.putIfAbsent(key, plan);
+			}
+		}
+		else if (cached.isResolvedFrom(conversionRegistry)) {
+			bindingPlans.replace(key, cached, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the plan for binding objects of the given runtime class to the parameters of this SQL
+	 */
+	ObjectBindingPlan getObjectBindingPlan(Class<?> runtimeClass) {
+		ObjectBindingPlan plan = objectBindingPlans.get(runtimeClass);
+		if (plan == null) {
+			plan = new ObjectBindingPlan(this, runtimeClass);
+			if (objectBindingPlans.size() < MAX_BINDING_PLANS) {
+				objectBindingPlans.putIfAbsent(runtimeClass, plan);
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the template for rewriting this SQL as a multi-row insert, or null if it is not an 'insert ... values (...)'
+	 * statement which can be rewritten
+	 */
+	MultiRowInsert getMultiRowInsert() {
+		Optional<MultiRowInsert> template = multiRowInsert;
+		if (template == null) {
+			multiRowInsert = template = Optional.ofNullable(MultiRowInsert.parse(formattedSQL, getParameterCount()));
+		}
+		return template.orElse(null);
+	}
+
+	/**
+	 * Parses the given SQL without consulting or populating the cache.
+	 * <br/><br/>
+	 * Parameters are extracted and the formatted SQL is produced in a single scan. Parameter markers are ignored inside of
+	 * the following constructs:
+	 * <ul>
+	 * <li>Single-quoted string literals, with '' as an escaped quote</li>
+	 * <li>Double-quoted and back-tick quoted identifiers</li>
+	 * <li>Line comments beginning with -- and block comments enclosed in slash-star / star-slash</li>
+	 * <li>Postgres-style '::' type casts</li>
+	 * </ul>
+	 * @throws QueryStructureException If the SQL contains duplicate parameter labels
+	 */
+	public static CompiledSQL parse(String sql) {
+
+		Map<String, Integer> paramLabel_index = new HashMap<>();
+		StringBuilder formattedSQL = new StringBuilder(sql.length());
+
+		int paramIndex = 0;
+		int length = sql.length();
+		int pos = 0;
+		int copiedUpTo = 0; // Plain SQL is copied to the output in runs, up to each parameter marker
+		while (pos < length) {
+
+			char c = sql.charAt(pos);
+			int next = pos + 1;
+
+			if (c == '\'' || c == '"' || c == '`') {
+				next = skipQuoted(sql, pos, c);
+			}
+			else if (c == '-' && next < length && sql.charAt(next) == '-') {
+				next = skipLineComment(sql, pos);
+			}
+			else if (c == '/' && next < length && sql.charAt(next) == '*') {
+				next = skipBlockComment(sql, pos);
+			}
+			else if (c == ':' && next < length && sql.charAt(next) == ':') {
+				next = pos + 2; // Type cast, the type name that follows is copied as normal SQL
+			}
+			else if (c == '?') {
+				paramIndex++;
+				paramLabel_index.put(paramIndex + "", paramIndex);
+				formattedSQL.append(sql, copiedUpTo, pos).append('?');
+				copiedUpTo = next;
+			}
+			else if (c == ':' && next < length && isLabelChar(sql.charAt(next))) {
+				int labelEnd = next;
+				while (labelEnd < length && isLabelChar(sql.charAt(labelEnd))) {
+					labelEnd++;
+				}
+				String paramLabel = sql.substring(next, labelEnd);
+				if (paramLabel_index.containsKey(paramLabel)) {
+					throw new QueryStructureException("Duplicate parameter '" + paramLabel + "' in query:\n" + sql);
+				}
+				paramIndex++;
+				paramLabel_index.put(paramLabel, paramIndex);
+				formattedSQL.append(sql, copiedUpTo, pos).append('?');
+				copiedUpTo = next = labelEnd;
+			}
+
+			pos = next;
+		}
+		formattedSQL.append(sql, copiedUpTo, length);
+
+		return new CompiledSQL(sql, formattedSQL.toString(), paramLabel_index);
+	}
+
+	/**
+	 * Returns the index just past the closing quote of the quoted section beginning at the given index. A doubled quote
+	 * character is treated as an escaped quote. Unterminated sections run to the end of the SQL
+	 */
+	static int skipQuoted(String sql, int start, char quote) {
+		int pos = start + 1;
+		while (pos < sql.length()) {
+			if (sql.charAt(pos) == quote) {
+				if (pos + 1 < sql.length() && sql.charAt(pos + 1) == quote) {
+					pos += 2;
+					continue;
+				}
+				return pos + 1;
+			}
+			pos++;
+		}
+		return sql.length();
+	}
+
+	static int skipLineComment(String sql, int start) {
+		int newline = sql.indexOf('\n', start + 2);
+		return newline == -1 ? sql.length() : newline + 1;
+	}
+
+	static int skipBlockComment(String sql, int start) {
+		int end = sql.indexOf("*/", start + 2);
+		return end == -1 ? sql.length() : end + 2;
+	}
+
+	/**
+	 * Parameter labels consist of word characters, same as the regex class \w
+	 */
+	private static boolean isLabelChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	@Override
+	public String toString() {
+		return sql;
+	}
+
+}
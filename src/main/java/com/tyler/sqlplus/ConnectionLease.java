@@ -0,0 +1,93 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.ResourceLeakException;
+
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks a connection borrowed by a {@link Session} until it is returned, recording how long it was held and, if leak
+ * detection is enabled, reporting it if it is held past the leak detection threshold
+ */
+final class ConnectionLease {
+
+	/**
+	 * Fires leak reports. Created on first use, so no thread is started unless leak detection is enabled
+	 */
+	private static final class LeakDetectionTimer {
+
+		static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, task -> {
+			Thread thread = new Thread(task, "sqlplus-leak-detection");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		static {
+			TIMER.setRemoveOnCancelPolicy(true);
+		}
+
+	}
+
+	private final ConnectionMetrics metrics;
+	private final Consumer<ResourceLeakException> leakListener;
+	private final boolean leakDetectionEnabled;
+	private final long borrowedNanos = System.nanoTime();
+	private final ScheduledFuture<?> leakTask;
+	private boolean released;
+
+	ConnectionLease(ConnectionMetrics metrics, long leakDetectionThresholdMillis, Consumer<ResourceLeakException> leakListener) {
+		this.metrics = metrics;
+		this.leakListener = leakListener;
+		this.leakDetectionEnabled = leakDetectionThresholdMillis > 0;
+		if (leakDetectionEnabled) {
+			ResourceLeakException leak = new ResourceLeakException(
+				"Connection acquired by thread '" + Thread.currentThread().getName() + "' has been held for more than " + leakDetectionThresholdMillis + "ms");
+			leakTask = LeakDetectionTimer.TIMER.schedule(() -> {
+				metrics.leakDetected();
+				leakListener.accept(leak);
+			}, leakDetectionThresholdMillis, TimeUnit.MILLISECONDS);
+		} else {
+			leakTask = null;
+		}
+	}
+
+	/**
+	 * Whether the creation stacks of result streams should be captured, so they can be reported if the streams escape
+	 */
+	boolean isLeakDetectionEnabled() {
+		return leakDetectionEnabled;
+	}
+
+	/**
+	 * Reports result streams which were still open when the session ended, and so were closed by it. Creation stacks are
+	 * only available if leak detection is enabled
+	 */
+	void reportEscapedStreams(Collection<ResourceLeakException> creationStacks) {
+		metrics.streamsEscaped(creationStacks.size());
+		if (leakDetectionEnabled) {
+			creationStacks.forEach(leakListener);
+		} else {
+			leakListener.accept(new ResourceLeakException(
+				creationStacks.size() + " result stream(s) were not exhausted or closed before their session ended, and were closed with it. " +
+				"Enable leak detection to capture where they were created"));
+		}
+	}
+
+	/**
+	 * Records the return of the connection. Only takes effect the first time it is called
+	 */
+	void release() {
+		if (released) {
+			return;
+		}
+		released = true;
+		if (leakTask != null) {
+			leakTask.cancel(false);
+		}
+		metrics.released(System.nanoTime() - borrowedNanos);
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.tyler.sqlplus;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Connection usage statistics of a {@link SQLPlus} instance. These are recorded where sessions borrow and return their
+ * connections, so they are available whichever {@link DataSource} is used. All counters are updated without locking
+ */
+public final class ConnectionMetrics {
+
+	/** Upper bounds, in milliseconds, of the borrow duration histogram buckets. A final bucket counts longer durations */
+	private static final long[] BORROW_DURATION_BUCKET_MILLIS = { 1, 5, 10, 50, 100, 500, 1_000, 5_000 };
+
+	private final Supplier<DataSource> dataSource;
+
+	private final LongAdder acquisitions = new LongAdder();
+	private final LongAdder acquisitionNanos = new LongAdder();
+	private final LongAccumulator maxAcquisitionNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final AtomicInteger active = new AtomicInteger();
+	private final LongAdder[] borrowDurations = new LongAdder[BORROW_DURATION_BUCKET_MILLIS.length + 1];
+	private final LongAdder leaks = new LongAdder();
+	private final LongAdder escapedStreams = new LongAdder();
+
+	ConnectionMetrics(Supplier<DataSource> dataSource) {
+		this.dataSource = dataSource;
+		for (int i = 0; i < borrowDurations.length; i++) {
+			borrowDurations[i] = new LongAdder();
+		}
+	}
+
+	void acquired(long waitNanos) {
+		acquisitions.increment();
+		acquisitionNanos.add(waitNanos);
+		maxAcquisitionNanos.accumulate(waitNanos);
+		active.incrementAndGet();
+	}
+
+	void acquisitionFailed(SQLException e) {
+		if (e instanceof SQLTimeoutException) {
+			timeouts.increment();
+		} else {
+			failures.increment();
+		}
+	}
+
+	void released(long heldNanos) {
+		active.decrementAndGet();
+		long heldMillis = TimeUnit.NANOSECONDS.toMillis(heldNanos);
+		int bucket = 0;
+		while (bucket < BORROW_DURATION_BUCKET_MILLIS.length && heldMillis >= BORROW_DURATION_BUCKET_MILLIS[bucket]) {
+			bucket++;
+		}
+		borrowDurations[bucket].increment();
+	}
+
+	void leakDetected() {
+		leaks.increment();
+	}
+
+	void streamsEscaped(int count) {
+		escapedStreams.add(count);
+	}
+
+	/**
+	 * Number of connections successfully acquired from the data source
+	 */
+	public long getAcquisitionCount() {
+		return acquisitions.sum();
+	}
+
+	/**
+	 * Total time spent waiting for the data source to supply connections, in nanoseconds
+	 */
+	public long getTotalAcquisitionNanos() {
+		return acquisitionNanos.sum();
+	}
+
+	/**
+	 * Longest time spent waiting for the data source to supply a connection, in nanoseconds
+	 */
+	public long getMaxAcquisitionNanos() {
+		return maxAcquisitionNanos.get();
+	}
+
+	/**
+	 * Number of times the data source timed out supplying a connection
+	 */
+	public long getTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	/**
+	 * Number of times the data source failed to supply a connection for any reason other than a timeout
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * Number of connections currently borrowed by sessions of this instance
+	 */
+	public int getActiveConnections() {
+		return active.get();
+	}
+
+	/**
+	 * Number of idle connections in the data source's pool, or -1 if the data source is not a {@link PooledDataSource}
+	 */
+	public int getIdleConnections() {
+		DataSource source = dataSource.get();
+		return source instanceof PooledDataSource ? ((PooledDataSource) source).getIdleConnections() : -1;
+	}
+
+	/**
+	 * Upper bounds, in milliseconds, of the buckets of {@link #getBorrowDurationHistogram()}
+	 */
+	public static long[] getBorrowDurationBucketMillis() {
+		return BORROW_DURATION_BUCKET_MILLIS.clone();
+	}
+
+	/**
+	 * Counts of returned connections by how long they were borrowed for. Element i counts durations below the i'th bucket
+	 * bound of {@link #getBorrowDurationBucketMillis()} (and at or above the previous one), and the last element counts
+	 * durations at or above the highest bound
+	 */
+	public long[] getBorrowDurationHistogram() {
+		long[] histogram = new long[borrowDurations.length];
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = borrowDurations[i].sum();
+		}
+		return histogram;
+	}
+
+	/**
+	 * Number of connections held past the leak detection threshold
+	 */
+	public long getLeakCount() {
+		return leaks.sum();
+	}
+
+	/**
+	 * Number of result streams which were neither exhausted nor closed by the time their session ended
+	 */
+	public long getEscapedStreamCount() {
+		return escapedStreams.sum();
+	}
+
+	@Override
+	public String toString() {
+		long acquisitionCount = getAcquisitionCount();
+		return "ConnectionMetrics[acquisitions=" + acquisitionCount +
+		       ", avgAcquisitionMicros=" + (acquisitionCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(getTotalAcquisitionNanos() / acquisitionCount)) +
+		       ", maxAcquisitionMicros=" + TimeUnit.NANOSECONDS.toMicros(getMaxAcquisitionNanos()) +
+		       ", timeouts=" + getTimeoutCount() +
+		       ", failures=" + getFailureCount() +
+		       ", active=" + getActiveConnections() +
+		       ", idle=" + getIdleConnections() +
+		       ", leaks=" + getLeakCount() +
+		       ", escapedStreams=" + getEscapedStreamCount() + "]";
+	}
+
+}
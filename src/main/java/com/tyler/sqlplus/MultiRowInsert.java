@@ -0,0 +1,192 @@
+package com.tyler.sqlplus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shape of an 'insert ... values (...)' statement whose VALUES row can be repeated, so that several parameter batches
+ * are inserted by one multi-row statement, for example:
+ * <pre>
+ * insert into widget (name, color) values (?, ?), (?, ?), (?, ?)
+ * </pre>
+ * Statements are only recognized when the VALUES row is the last clause of the SQL and contains every parameter, so that
+ * the parameters of each repeated row are those of one batch, in order. The SQL for each row count is cached, so that
+ * rewritten statements can still be reused from the statement cache
+ */
+final class MultiRowInsert {
+
+	/**
+	 * Upper bound on the number of parameters of a rewritten statement. Many drivers and databases limit the number of
+	 * parameters per statement, the lowest common limit being 32767 on Postgres
+	 */
+	static final int MAX_PARAMETERS_PER_STATEMENT = 32_767;
+
+	/** Upper bound on the number of distinct row counts whose SQL is cached */
+	private static final int MAX_CACHED_SHAPES = 32;
+
+	/** The SQL up to the VALUES row, including the VALUES keyword */
+	private final String prefix;
+
+	/** The parenthesized VALUES row */
+	private final String row;
+
+	private final int parameterCount;
+
+	/** Rewritten SQL by row count */
+	private final Map<Integer, String> sqlByRowCount = new ConcurrentHashMap<>();
+
+	private MultiRowInsert(String prefix, String row, int parameterCount) {
+		this.prefix = prefix;
+		this.row = row;
+		this.parameterCount = parameterCount;
+	}
+
+	/**
+	 * The largest number of rows a single rewritten statement may insert, given the parameter limit per statement
+	 */
+	int maxRowsPerStatement() {
+		return Math.max(1, MAX_PARAMETERS_PER_STATEMENT / parameterCount);
+	}
+
+	/**
+	 * Returns the SQL which inserts the given number of rows, each with its own set of parameters
+	 */
+	String getSQL(int rows) {
+		String sql = sqlByRowCount.get(rows);
+		if (sql == null) {
+			StringBuilder rewritten = new StringBuilder(prefix.length() + rows * (row.length() + 2)).append(prefix).append(row);
+			for (int i = 1; i < rows; i++) {
+				rewritten.append(", ").append(row);
+			}
+			sql = rewritten.toString();
+			if (sqlByRowCount.size() < MAX_CACHED_SHAPES) {
+				sqlByRowCount.putIfAbsent(rows, sql);
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * Recognizes the given formatted SQL as a multi-row insert template.
+	 * @return The template, or null if the SQL is not an 'insert ... values (...)' statement whose single VALUES row is its
+	 * last clause and holds all of its parameters
+	 */
+	static MultiRowInsert parse(String formattedSQL, int parameterCount) {
+
+		if (parameterCount == 0) {
+			return null;
+		}
+
+		int pos = skipIgnorable(formattedSQL, 0);
+		if (!isKeywordAt(formattedSQL, pos, "insert")) {
+			return null;
+		}
+
+		// Find the VALUES keyword outside of any quotes, comments or parentheses
+		int rowStart = -1;
+		int depth = 0;
+		int length = formattedSQL.length();
+		while (pos < length) {
+			char c = formattedSQL.charAt(pos);
+			int next = skipIgnorable(formattedSQL, pos);
+			if (next != pos) {
+				pos = next;
+				continue;
+			}
+			if (c == '?') {
+				return null; // Parameter outside of the VALUES row
+			}
+			if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (depth == 0 && isKeywordAt(formattedSQL, pos, "values")) {
+				rowStart = skipIgnorable(formattedSQL, pos + "values".length());
+				break;
+			}
+			pos++;
+		}
+		if (rowStart == -1 || rowStart >= length || formattedSQL.charAt(rowStart) != '(') {
+			return null;
+		}
+
+		// Find the end of the VALUES row, counting its parameters
+		int rowParameters = 0;
+		depth = 0;
+		pos = rowStart;
+		int rowEnd = -1;
+		while (pos < length && rowEnd == -1) {
+			char c = formattedSQL.charAt(pos);
+			int next = skipIgnorable(formattedSQL, pos);
+			if (next != pos) {
+				pos = next;
+				continue;
+			}
+			if (c == '?') {
+				rowParameters++;
+			}
+			else if (c == '(') {
+				depth++;
+			}
+			else if (c == ')' && --depth == 0) {
+				rowEnd = pos + 1;
+			}
+			pos++;
+		}
+		if (rowEnd == -1 || rowParameters != parameterCount) {
+			return null;
+		}
+
+		// Only a statement terminator may follow the row. Anything else, such as a second row or an upsert clause, is not repeatable
+		pos = skipIgnorable(formattedSQL, rowEnd);
+		if (pos < length && formattedSQL.charAt(pos) == ';') {
+			pos = skipIgnorable(formattedSQL, pos + 1);
+		}
+		if (pos != length) {
+			return null;
+		}
+
+		return new MultiRowInsert(formattedSQL.substring(0, rowStart), formattedSQL.substring(rowStart, rowEnd), parameterCount);
+	}
+
+	/**
+	 * Returns the index of the first character at or after the given index which is not whitespace, or part of a comment
+	 * or quoted section
+	 */
+	private static int skipIgnorable(String sql, int pos) {
+		int length = sql.length();
+		while (pos < length) {
+			char c = sql.charAt(pos);
+			if (Character.isWhitespace(c)) {
+				pos++;
+			}
+			else if (c == '\'' || c == '"' || c == '`') {
+				pos = CompiledSQL.skipQuoted(sql, pos, c);
+			}
+			else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+				pos = CompiledSQL.skipLineComment(sql, pos);
+			}
+			else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+				pos = CompiledSQL.skipBlockComment(sql, pos);
+			}
+			else {
+				break;
+			}
+		}
+		return pos;
+	}
+
+	private static boolean isKeywordAt(String sql, int pos, String keyword) {
+		int end = pos + keyword.length();
+		return sql.regionMatches(true, pos, keyword, 0, keyword.length()) &&
+		       (pos == 0 || !isWordChar(sql.charAt(pos - 1))) &&
+		       (end == sql.length() || !isWordChar(sql.charAt(end)));
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+
+}
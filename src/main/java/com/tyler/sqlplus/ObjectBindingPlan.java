@@ -0,0 +1,71 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.utility.Fields;
+import javassist.util.proxy.Proxy;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Describes how objects of one class are bound to the parameters of one compiled SQL statement by {@link Query#bind}:
+ * which parameters are read from a field of the object, through which accessor, and whether any parameters are left
+ * which must be set manually.
+ * <br/><br/>
+ * Plans are resolved once per compiled SQL and bound class, so binding a collection of objects does no field lookups
+ */
+final class ObjectBindingPlan {
+
+	/** 1-based index of each parameter bound from a field */
+	private final int[] paramIndices;
+
+	/** Reads the field bound to each parameter, in the same order as paramIndices */
+	private final Function<Object, Object>[] getters;
+
+	/** Whether every parameter of the SQL is bound from a field, in which case binding an object completes a batch */
+	final boolean isComplete;
+
+	/**
+	 * Resolves the plan for binding objects of the given runtime class to the parameters of the given SQL. Parameters are
+	 * bound from fields declared by the class whose names match the parameter labels.
+	 * <br/>
+	 * Proxies are bound when lazy loading related entities. In this case, fields are pulled from the proxy's superclass, but
+	 * are still read through any getters the proxy class declares
+	 */
+	@SuppressWarnings("unchecked")
+	ObjectBindingPlan(CompiledSQL compiledSQL, Class<?> runtimeClass) {
+
+		Class<?> fieldClass = Proxy.class.isAssignableFrom(runtimeClass) ? runtimeClass.getSuperclass() : runtimeClass;
+		Map<String, Field> declaredFields = new HashMap<>();
+		for (Field field : fieldClass.getDeclaredFields()) {
+			declaredFields.put(field.getName(), field);
+		}
+
+		List<Integer> boundIndices = new ArrayList<>();
+		List<Function<Object, Object>> boundGetters = new ArrayList<>();
+		compiledSQL.getParamIndices().forEach((paramLabel, paramIndex) -> {
+			Field mappedField = declaredFields.get(paramLabel);
+			if (mappedField != null) {
+				boundIndices.add(paramIndex);
+				boundGetters.add(Fields.getter(runtimeClass, mappedField));
+			}
+		});
+
+		this.paramIndices = boundIndices.stream().mapToInt(Integer::intValue).toArray();
+		this.getters = boundGetters.toArray(new Function[boundGetters.size()]);
+		this.isComplete = paramIndices.length == compiledSQL.getParameterCount();
+	}
+
+	/**
+	 * Reads each bound field of the given object into the batch currently being built
+	 */
+	void bind(Object o, ParameterBatchBuffer paramBatches) {
+		for (int i = 0; i < paramIndices.length; i++) {
+			paramBatches.set(paramIndices[i] - 1, getters[i].apply(o));
+		}
+	}
+
+}
@@ -0,0 +1,499 @@
+package com.tyler.sqlplus;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Columnar storage for the parameter batches of a {@link Query}: one growable array per parameter position, rather than a
+ * map per batch.
+ * <br/><br/>
+ * Each column picks its storage from the first non-null value appended to it. Integer, long, double and boolean values
+ * are stored unboxed in primitive arrays, from which they can also be read and bound without boxing, and anything else in
+ * an object array. Nulls are tracked in a per-column bitmap, so they do not prevent primitive storage. If a value of a
+ * different class is later appended to a primitive column, the column is converted to object storage.
+ * <br/><br/>
+ * Values for the batch currently being built are held separately until the batch is finished, at which point they are
+ * appended to the columns
+ */
+final class ParameterBatchBuffer {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Storage for each parameter's values, by 0-based parameter index */
+	private final Column[] columns;
+
+	/** Number of finished batches */
+	private int size;
+
+	/** Values of the batch currently being built, by 0-based parameter index */
+	private final Object[] pendingValues;
+
+	/** Which parameters of the batch currently being built have been set */
+	private final boolean[] pendingSet;
+
+	private int pendingCount;
+
+	ParameterBatchBuffer(int parameterCount) {
+		columns = new Column[parameterCount];
+		for (int i = 0; i < parameterCount; i++) {
+			columns[i] = new UntypedColumn();
+		}
+		pendingValues = new Object[parameterCount];
+		pendingSet = new boolean[parameterCount];
+	}
+
+	/**
+	 * Sets a value of the batch currently being built, by 0-based parameter index
+	 */
+	void set(int paramIndex, Object value) {
+		if (!pendingSet[paramIndex]) {
+			pendingSet[paramIndex] = true;
+			pendingCount++;
+		}
+		pendingValues[paramIndex] = value;
+	}
+
+	boolean isSet(int paramIndex) {
+		return pendingSet[paramIndex];
+	}
+
+	/**
+	 * Whether any value of the batch currently being built has been set
+	 */
+	boolean hasPending() {
+		return pendingCount > 0;
+	}
+
+	/**
+	 * Appends the batch currently being built to the finished batches. The caller is responsible for ensuring that all of
+	 * its values are set
+	 */
+	void finishPending() {
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = columns[i].append(size, pendingValues[i]);
+			pendingValues[i] = null;
+			pendingSet[i] = false;
+		}
+		pendingCount = 0;
+		size++;
+	}
+
+	/**
+	 * Discards all finished batches. Column storage is kept for reuse by subsequent batches
+	 */
+	void clearFinished() {
+		for (Column column : columns) {
+			column.clear(size);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Number of finished batches
+	 */
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the value of the given finished batch at the given 0-based parameter index. Primitive values are boxed
+	 */
+	Object get(int batch, int paramIndex) {
+		return columns[paramIndex].get(batch);
+	}
+
+	/**
+	 * Whether the value of the given finished batch at the given 0-based parameter index is null
+	 */
+	boolean isNull(int batch, int paramIndex) {
+		return columns[paramIndex].isNull(batch);
+	}
+
+	/**
+	 * Returns the non-null Integer value of the given finished batch at the given 0-based parameter index, without boxing it
+	 * if the parameter's values are stored unboxed. The same goes for {@link #getLong}, {@link #getDouble} and
+	 * {@link #getBoolean}
+	 */
+	int getInt(int batch, int paramIndex) {
+		return columns[paramIndex].getInt(batch);
+	}
+
+	long getLong(int batch, int paramIndex) {
+		return columns[paramIndex].getLong(batch);
+	}
+
+	double getDouble(int batch, int paramIndex) {
+		return columns[paramIndex].getDouble(batch);
+	}
+
+	boolean getBoolean(int batch, int paramIndex) {
+		return columns[paramIndex].getBoolean(batch);
+	}
+
+	/**
+	 * Returns the class of every non-null value of the finished batches at the given 0-based parameter index, or null if
+	 * there are none or their classes differ
+	 */
+	Class<?> getValueClass(int paramIndex) {
+		return columns[paramIndex].valueClass;
+	}
+
+	/**
+	 * Determines the type signature of the finished batches: for each parameter, the class of its non-null values if they
+	 * all share one class, or otherwise null
+	 */
+	Class<?>[] signature() {
+		Class<?>[] signature = new Class<?>[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			signature[i] = getValueClass(i);
+		}
+		return signature;
+	}
+
+	/**
+	 * Appends the values of all finished batches, followed by the values set so far for the batch being built, in parameter
+	 * order
+	 */
+	void collectValues(Collection<Object> values) {
+		for (int batch = 0; batch < size; batch++) {
+			for (Column column : columns) {
+				values.add(column.get(batch));
+			}
+		}
+		for (int i = 0; i < pendingValues.length; i++) {
+			if (pendingSet[i]) {
+				values.add(pendingValues[i]);
+			}
+		}
+	}
+
+	private abstract static class Column {
+
+		/** Bitmap of the batches whose value is null */
+		long[] nulls = new long[1];
+
+		/** Class of every non-null value appended so far. Null if there are none yet, or if their classes differ */
+		Class<?> valueClass;
+
+		/**
+		 * Appends the value of the given batch, returning the column to use from now on. This is a converted copy of this
+		 * column if it cannot store the value
+		 */
+		abstract Column append(int batch, Object value);
+
+		abstract Object getNonNull(int batch);
+
+		/**
+		 * Reads a non-null value as a primitive. Columns storing that primitive override this to read it without boxing
+		 */
+		int getInt(int batch) {
+			return (Integer) getNonNull(batch);
+		}
+
+		long getLong(int batch) {
+			return (Long) getNonNull(batch);
+		}
+
+		double getDouble(int batch) {
+			return (Double) getNonNull(batch);
+		}
+
+		boolean getBoolean(int batch) {
+			return (Boolean) getNonNull(batch);
+		}
+
+		/**
+		 * Discards the given number of batches, releasing any object references
+		 */
+		void clear(int batches) {
+			Arrays.fill(nulls, 0L);
+		}
+
+		final Object get(int batch) {
+			return isNull(batch) ? null : getNonNull(batch);
+		}
+
+		final boolean isNull(int batch) {
+			int word = batch >>> 6;
+			return word < nulls.length && (nulls[word] & (1L << batch)) != 0;
+		}
+
+		final void appendNull(int batch) {
+			int word = batch >>> 6;
+			if (word >= nulls.length) {
+				nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+			}
+			nulls[word] |= 1L << batch;
+		}
+
+		/**
+		 * Converts the given number of batches of this column to object storage
+		 */
+		final ObjectColumn toObjectColumn(int batches) {
+			ObjectColumn converted = new ObjectColumn(this, capacityFor(batches));
+			for (int batch = 0; batch < batches; batch++) {
+				converted.values[batch] = get(batch);
+			}
+			return converted;
+		}
+
+		static int capacityFor(int batch) {
+			return Math.max(INITIAL_CAPACITY, batch + (batch >> 1) + 1);
+		}
+
+	}
+
+	/**
+	 * A column whose values have all been null so far
+	 */
+	private static final class UntypedColumn extends Column {
+
+		@Override
+		Column append(int batch, Object value) {
+			if (value == null) {
+				appendNull(batch);
+				return this;
+			}
+			Column typed;
+			Class<?> type = value.getClass();
+			if (type == Integer.class) {
+				typed = new IntColumn(this, capacityFor(batch));
+			}
+			else if (type == Long.class) {
+				typed = new LongColumn(this, capacityFor(batch));
+			}
+			else if (type == Double.class) {
+				typed = new DoubleColumn(this, capacityFor(batch));
+			}
+			else if (type == Boolean.class) {
+				typed = new BooleanColumn(this, capacityFor(batch));
+			}
+			else {
+				typed = new ObjectColumn(this, capacityFor(batch));
+			}
+			return typed.append(batch, value);
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			throw new IllegalStateException("Untyped columns only hold nulls");
+		}
+
+	}
+
+	private static final class IntColumn extends Column {
+
+		private int[] values;
+
+		IntColumn(Column from, int capacity) {
+			nulls = from.nulls;
+			valueClass = Integer.class;
+			values = new int[capacity];
+		}
+
+		@Override
+		Column append(int batch, Object value) {
+			if (value != null && value.getClass() != Integer.class) {
+				return toObjectColumn(batch).append(batch, value);
+			}
+			if (batch >= values.length) {
+				values = Arrays.copyOf(values, capacityFor(batch));
+			}
+			if (value == null) {
+				appendNull(batch);
+			} else {
+				values[batch] = (Integer) value;
+			}
+			return this;
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			return values[batch];
+		}
+
+		@Override
+		int getInt(int batch) {
+			return values[batch];
+		}
+
+	}
+
+	private static final class LongColumn extends Column {
+
+		private long[] values;
+
+		LongColumn(Column from, int capacity) {
+			nulls = from.nulls;
+			valueClass = Long.class;
+			values = new long[capacity];
+		}
+
+		@Override
+		Column append(int batch, Object value) {
+			if (value != null && value.getClass() != Long.class) {
+				return toObjectColumn(batch).append(batch, value);
+			}
+			if (batch >= values.length) {
+				values = Arrays.copyOf(values, capacityFor(batch));
+			}
+			if (value == null) {
+				appendNull(batch);
+			} else {
+				values[batch] = (Long) value;
+			}
+			return this;
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			return values[batch];
+		}
+
+		@Override
+		long getLong(int batch) {
+			return values[batch];
+		}
+
+	}
+
+	private static final class DoubleColumn extends Column {
+
+		private double[] values;
+
+		DoubleColumn(Column from, int capacity) {
+			nulls = from.nulls;
+			valueClass = Double.class;
+			values = new double[capacity];
+		}
+
+		@Override
+		Column append(int batch, Object value) {
+			if (value != null && value.getClass() != Double.class) {
+				return toObjectColumn(batch).append(batch, value);
+			}
+			if (batch >= values.length) {
+				values = Arrays.copyOf(values, capacityFor(batch));
+			}
+			if (value == null) {
+				appendNull(batch);
+			} else {
+				values[batch] = (Double) value;
+			}
+			return this;
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			return values[batch];
+		}
+
+		@Override
+		double getDouble(int batch) {
+			return values[batch];
+		}
+
+	}
+
+	/**
+	 * Stores boolean values as a bitmap, alongside the null bitmap
+	 */
+	private static final class BooleanColumn extends Column {
+
+		private long[] values;
+
+		BooleanColumn(Column from, int capacity) {
+			nulls = from.nulls;
+			valueClass = Boolean.class;
+			values = new long[(capacity >>> 6) + 1];
+		}
+
+		@Override
+		Column append(int batch, Object value) {
+			if (value != null && value.getClass() != Boolean.class) {
+				return toObjectColumn(batch).append(batch, value);
+			}
+			if (value == null) {
+				appendNull(batch);
+			}
+			else if ((Boolean) value) {
+				int word = batch >>> 6;
+				if (word >= values.length) {
+					values = Arrays.copyOf(values, Math.max(word + 1, values.length * 2));
+				}
+				values[word] |= 1L << batch;
+			}
+			return this;
+		}
+
+		@Override
+		void clear(int batches) {
+			super.clear(batches);
+			Arrays.fill(values, 0L);
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			return getBoolean(batch);
+		}
+
+		@Override
+		boolean getBoolean(int batch) {
+			int word = batch >>> 6;
+			return word < values.length && (values[word] & (1L << batch)) != 0;
+		}
+
+	}
+
+	private static final class ObjectColumn extends Column {
+
+		private Object[] values;
+
+		/** Whether the non-null values of this column have differing classes, in which case valueClass is null */
+		private boolean mixedClasses;
+
+		ObjectColumn(Column from, int capacity) {
+			nulls = from.nulls;
+			valueClass = from.valueClass;
+			values = new Object[capacity];
+		}
+
+		@Override
+		Column append(int batch, Object value) {
+			if (batch >= values.length) {
+				values = Arrays.copyOf(values, capacityFor(batch));
+			}
+			if (value == null) {
+				appendNull(batch);
+				return this;
+			}
+			values[batch] = value;
+			if (!mixedClasses && valueClass != value.getClass()) {
+				if (valueClass == null) {
+					valueClass = value.getClass(); // First non-null value
+				} else {
+					valueClass = null;
+					mixedClasses = true;
+				}
+			}
+			return this;
+		}
+
+		@Override
+		void clear(int batches) {
+			super.clear(batches);
+			Arrays.fill(values, 0, Math.min(batches, values.length), null);
+		}
+
+		@Override
+		Object getNonNull(int batch) {
+			return values[batch];
+		}
+
+	}
+
+}
@@ -0,0 +1,394 @@
+package com.tyler.sqlplus;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * The connection handed out by a {@link PooledDataSource} for a single checkout. Closing it returns the underlying physical
+ * connection to the pool, after which this handle can no longer be used.
+ * <br/><br/>
+ * Auto-commit, transaction isolation and read-only settings are tracked rather than sent to the driver straight away. They
+ * start out as the defaults of the physical connection, and are only applied when the connection is first used (to create
+ * a statement, commit, and so on), and then only where they differ from the settings the physical connection was left with
+ * by its previous checkout. Once the connection has been used, settings are applied as they are changed, still skipping
+ * redundant calls. Changing any other session state, such as the catalog or schema, makes the physical connection
+ * ineligible for reuse
+ */
+final class PooledConnection implements Connection {
+
+	private final PooledDataSource pool;
+	private final PooledDataSource.PoolEntry entry;
+	private final Connection conn;
+	private boolean closed;
+
+	/** Settings of this checkout, which the physical connection is brought in line with once it is used */
+	private boolean autoCommit;
+	private int transactionIsolation;
+	private boolean readOnly;
+	private boolean used;
+
+	PooledConnection(PooledDataSource pool, PooledDataSource.PoolEntry entry) {
+		this.pool = pool;
+		this.entry = entry;
+		this.conn = entry.connection;
+		this.autoCommit = entry.defaultAutoCommit;
+		this.transactionIsolation = entry.defaultTransactionIsolation;
+		this.readOnly = entry.defaultReadOnly;
+	}
+
+	private Connection delegate() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection has been returned to the pool");
+		}
+		return conn;
+	}
+
+	/**
+	 * Returns the physical connection for an operation which depends on the settings of this checkout, applying them first
+	 * if the connection has not been used yet
+	 */
+	private Connection activeDelegate() throws SQLException {
+		Connection delegate = delegate();
+		if (!used) {
+			applySettings();
+			used = true;
+		}
+		return delegate;
+	}
+
+	/**
+	 * Sends the settings of this checkout which differ from those of the physical connection to the driver. Isolation and
+	 * read-only settings are changed while auto-commit is on, since some drivers refuse to change them inside a transaction
+	 */
+	private void applySettings() throws SQLException {
+		if (autoCommit && !entry.autoCommit) {
+			conn.setAutoCommit(true);
+			entry.autoCommit = true;
+		}
+		if (transactionIsolation != entry.transactionIsolation) {
+			conn.setTransactionIsolation(transactionIsolation);
+			entry.transactionIsolation = transactionIsolation;
+		}
+		if (readOnly != entry.readOnly) {
+			conn.setReadOnly(readOnly);
+			entry.readOnly = readOnly;
+		}
+		if (!autoCommit && entry.autoCommit) {
+			conn.setAutoCommit(false);
+			entry.autoCommit = false;
+		}
+	}
+
+	/**
+	 * Marks the physical connection as having session state the pool cannot restore, so it is closed when returned
+	 */
+	private Connection unresettableDelegate() throws SQLException {
+		Connection delegate = delegate();
+		entry.resettable = false;
+		return delegate;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (!closed) {
+			closed = true;
+			pool.release(entry, used);
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed || conn.isClosed();
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		delegate();
+		this.autoCommit = autoCommit;
+		if (used) {
+			applySettings();
+		}
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		delegate();
+		return autoCommit;
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		delegate();
+		this.transactionIsolation = level;
+		if (used) {
+			applySettings();
+		}
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		delegate();
+		return transactionIsolation;
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		delegate();
+		this.readOnly = readOnly;
+		if (used) {
+			applySettings();
+		}
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		delegate();
+		return readOnly;
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		activeDelegate().commit();
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		activeDelegate().rollback();
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		return activeDelegate().createStatement();
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		return activeDelegate().prepareStatement(sql);
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		return activeDelegate().prepareCall(sql);
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException {
+		return delegate().nativeSQL(sql);
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		return activeDelegate().getMetaData();
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException {
+		unresettableDelegate().setCatalog(catalog);
+	}
+
+	@Override
+	public String getCatalog() throws SQLException {
+		return delegate().getCatalog();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return delegate().getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		delegate().clearWarnings();
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		return activeDelegate().createStatement(resultSetType, resultSetConcurrency);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		return activeDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency);
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		return activeDelegate().prepareCall(sql, resultSetType, resultSetConcurrency);
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		return delegate().getTypeMap();
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		unresettableDelegate().setTypeMap(map);
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException {
+		unresettableDelegate().setHoldability(holdability);
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		return delegate().getHoldability();
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		return activeDelegate().setSavepoint();
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		return activeDelegate().setSavepoint(name);
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		activeDelegate().rollback(savepoint);
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		activeDelegate().releaseSavepoint(savepoint);
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		return activeDelegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		return activeDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		return activeDelegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		return activeDelegate().prepareStatement(sql, autoGeneratedKeys);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		return activeDelegate().prepareStatement(sql, columnIndexes);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+		return activeDelegate().prepareStatement(sql, columnNames);
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		return delegate().createClob();
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		return delegate().createBlob();
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		return delegate().createNClob();
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		return delegate().createSQLXML();
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException {
+		return !closed && conn.isValid(timeout);
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException {
+		if (closed) {
+			throw new SQLClientInfoException();
+		}
+		entry.resettable = false;
+		conn.setClientInfo(name, value);
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException {
+		if (closed) {
+			throw new SQLClientInfoException();
+		}
+		entry.resettable = false;
+		conn.setClientInfo(properties);
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException {
+		return delegate().getClientInfo(name);
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException {
+		return delegate().getClientInfo();
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+		return delegate().createArrayOf(typeName, elements);
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+		return delegate().createStruct(typeName, attributes);
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException {
+		unresettableDelegate().setSchema(schema);
+	}
+
+	@Override
+	public String getSchema() throws SQLException {
+		return delegate().getSchema();
+	}
+
+	@Override
+	public void abort(Executor executor) throws SQLException {
+		entry.resettable = false;
+		conn.abort(executor);
+		close();
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+		unresettableDelegate().setNetworkTimeout(executor, milliseconds);
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException {
+		return delegate().getNetworkTimeout();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return activeDelegate().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || delegate().isWrapperFor(iface);
+	}
+
+}
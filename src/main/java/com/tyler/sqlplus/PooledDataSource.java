@@ -0,0 +1,453 @@
+package com.tyler.sqlplus;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} which pools physical connections obtained from another, unpooled data source.
+ * <br/><br/>
+ * Borrowing a connection does not take any locks. A thread first tries the connection it last returned, which is usually
+ * idle for threads running one transaction after another, and otherwise claims any idle connection with a single CAS.
+ * New physical connections are only opened when none are idle and the pool is below its maximum size; once at the
+ * maximum, borrowers wait up to the connection timeout for one to be returned.
+ * <br/><br/>
+ * Connections are validated with {@link Connection#isValid} when borrowed, unless they were last used within the
+ * validation bypass window. Connections older than the maximum lifetime are closed instead of being reused, and idle
+ * connections are closed after the idle timeout, checked periodically as connections are borrowed. The pool does not start
+ * any threads of its own.
+ * <br/><br/>
+ * Returned connections have any open transaction rolled back. Every checkout starts out with the auto-commit, isolation
+ * and read-only settings the connection was opened with, but these are only sent to the driver once the connection is
+ * used, and only where they differ from what the physical connection already has. A thread which repeatedly borrows its
+ * last connection and applies the same settings to it therefore does not pay a round trip for them
+ */
+public class PooledDataSource implements DataSource, Closeable {
+
+	public static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+	private static final long DEFAULT_CONNECTION_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final long DEFAULT_MAX_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(30);
+	private static final long DEFAULT_VALIDATION_BYPASS_MILLIS = 500;
+	private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 5;
+	private static final long HOUSEKEEPING_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	private static final int IDLE = 0;
+	private static final int IN_USE = 1;
+	private static final int RETIRED = 2;
+
+	/**
+	 * A physical connection in the pool, along with its pool state and the session settings tracked for it
+	 */
+	static final class PoolEntry {
+
+		final Connection connection;
+		final long createdMillis;
+		final AtomicInteger state = new AtomicInteger(IN_USE);
+		volatile long lastUsedMillis;
+
+		/** Settings of the physical connection when it was opened, which each checkout starts out with */
+		final boolean defaultAutoCommit;
+		final int defaultTransactionIsolation;
+		final boolean defaultReadOnly;
+
+		/**
+		 * Current settings of the physical connection. These are left as they are when the connection is returned, and only
+		 * brought in line with the settings of the next checkout once it is used. Only accessed by the thread it is checked
+		 * out to
+		 */
+		boolean autoCommit;
+		int transactionIsolation;
+		boolean readOnly;
+
+		/** False once session state the pool cannot restore has been changed */
+		boolean resettable = true;
+
+		PoolEntry(Connection connection, long createdMillis) throws SQLException {
+			this.connection = connection;
+			this.createdMillis = createdMillis;
+			this.lastUsedMillis = createdMillis;
+			this.autoCommit = defaultAutoCommit = connection.getAutoCommit();
+			this.transactionIsolation = defaultTransactionIsolation = connection.getTransactionIsolation();
+			this.readOnly = defaultReadOnly = connection.isReadOnly();
+		}
+
+		boolean tryReserve() {
+			return state.get() == IDLE && state.compareAndSet(IDLE, IN_USE);
+		}
+
+		/**
+		 * Rolls back any transaction the checkout may have left open. A checkout which never used the connection cannot have
+		 * started one
+		 */
+		void reset(boolean used) throws SQLException {
+			if (used && !autoCommit) {
+				connection.rollback();
+			}
+		}
+
+	}
+
+	private final DataSource unpooledDataSource;
+	private final int maxPoolSize;
+
+	/** One permit per connection which may be checked out, so borrowers beyond the maximum pool size wait for a release */
+	private final Semaphore checkoutPermits;
+
+	private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<>();
+
+	/** Number of physical connections which are open or being opened */
+	private final AtomicInteger entryCount = new AtomicInteger();
+
+	/** The connection each thread last returned, which is tried first the next time the thread borrows one */
+	private final ThreadLocal<PoolEntry> lastEntryByThread = new ThreadLocal<>();
+
+	private final AtomicLong nextHousekeepingMillis = new AtomicLong(System.currentTimeMillis() + HOUSEKEEPING_INTERVAL_MILLIS);
+
+	private volatile boolean closed;
+
+	private volatile long connectionTimeoutMillis = DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private volatile long maxLifetimeMillis = DEFAULT_MAX_LIFETIME_MILLIS;
+	private volatile long validationBypassMillis = DEFAULT_VALIDATION_BYPASS_MILLIS;
+	private volatile int validationTimeoutSeconds = DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+
+	public PooledDataSource(String url, String username, String password) {
+		this(url, username, password, DEFAULT_MAX_POOL_SIZE);
+	}
+
+	public PooledDataSource(String url, String username, String password, int maxPoolSize) {
+		this(new BasicDataSource(url, username, password), maxPoolSize);
+	}
+
+	/**
+	 * Creates a pool of connections obtained from the given data source, which should not pool connections itself
+	 */
+	public PooledDataSource(DataSource unpooledDataSource, int maxPoolSize) {
+		if (maxPoolSize < 1) {
+			throw new IllegalArgumentException("Maximum pool size must be at least 1");
+		}
+		this.unpooledDataSource = unpooledDataSource;
+		this.maxPoolSize = maxPoolSize;
+		this.checkoutPermits = new Semaphore(maxPoolSize);
+	}
+
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	public long getConnectionTimeoutMillis() {
+		return connectionTimeoutMillis;
+	}
+
+	/**
+	 * Sets how long to wait for a connection to be returned when all are in use, before failing with an {@link SQLTimeoutException}
+	 */
+	public PooledDataSource setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+		this.connectionTimeoutMillis = connectionTimeoutMillis;
+		return this;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * Sets how long a connection may sit idle in the pool before it is closed. 0 keeps idle connections indefinitely
+	 */
+	public PooledDataSource setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		return this;
+	}
+
+	public long getMaxLifetimeMillis() {
+		return maxLifetimeMillis;
+	}
+
+	/**
+	 * Sets how long a physical connection may be used for, after which it is closed once returned. 0 for no limit
+	 */
+	public PooledDataSource setMaxLifetimeMillis(long maxLifetimeMillis) {
+		this.maxLifetimeMillis = maxLifetimeMillis;
+		return this;
+	}
+
+	public long getValidationBypassMillis() {
+		return validationBypassMillis;
+	}
+
+	/**
+	 * Sets the window after a connection was last used within which it is handed out again without being validated
+	 */
+	public PooledDataSource setValidationBypassMillis(long validationBypassMillis) {
+		this.validationBypassMillis = validationBypassMillis;
+		return this;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public PooledDataSource setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		return this;
+	}
+
+	/**
+	 * Returns the number of open physical connections, both idle and in use
+	 */
+	public int getTotalConnections() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of open physical connections which are idle in the pool
+	 */
+	public int getIdleConnections() {
+		int idle = 0;
+		for (PoolEntry entry : entries) {
+			if (entry.state.get() == IDLE) {
+				idle++;
+			}
+		}
+		return idle;
+	}
+
+	/**
+	 * Returns the number of connections currently checked out of the pool
+	 */
+	public int getActiveConnections() {
+		return maxPoolSize - checkoutPermits.availablePermits();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+
+		if (closed) {
+			throw new SQLException("Connection pool has been closed");
+		}
+
+		housekeep();
+
+		try {
+			if (!checkoutPermits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLTimeoutException("Timed out after " + connectionTimeoutMillis + "ms waiting for a connection, all " + maxPoolSize + " are in use");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		}
+
+		try {
+			return new PooledConnection(this, borrow());
+		} catch (SQLException | RuntimeException e) {
+			checkoutPermits.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("This data source cannot supply connections for an arbitrary user");
+	}
+
+	/**
+	 * Claims an idle connection, or opens a new one. The caller must hold a checkout permit, which guarantees that a
+	 * connection is either idle, about to become idle, or can be opened
+	 */
+	private PoolEntry borrow() throws SQLException {
+
+		PoolEntry lastEntry = lastEntryByThread.get();
+		if (lastEntry != null && lastEntry.tryReserve() && isUsable(lastEntry)) {
+			return lastEntry;
+		}
+
+		while (true) {
+
+			for (PoolEntry entry : entries) {
+				if (entry.tryReserve() && isUsable(entry)) {
+					return entry;
+				}
+			}
+
+			int count = entryCount.get();
+			if (count < maxPoolSize) {
+				if (entryCount.compareAndSet(count, count + 1)) {
+					return open();
+				}
+			} else {
+				Thread.yield(); // A connection is being returned, or retired to make room for a new one
+			}
+		}
+	}
+
+	private PoolEntry open() throws SQLException {
+		Connection connection = null;
+		try {
+			connection = unpooledDataSource.getConnection();
+			PoolEntry entry = new PoolEntry(connection, System.currentTimeMillis());
+			entries.add(entry);
+			return entry;
+		} catch (SQLException | RuntimeException e) {
+			entryCount.decrementAndGet();
+			closeQuietly(connection);
+			throw e;
+		}
+	}
+
+	/**
+	 * Determines whether the given reserved connection can be handed out, retiring it if not
+	 */
+	private boolean isUsable(PoolEntry entry) {
+		long now = System.currentTimeMillis();
+		if (isExpired(entry, now)) {
+			retire(entry);
+			return false;
+		}
+		if (now - entry.lastUsedMillis > validationBypassMillis) {
+			boolean valid;
+			try {
+				valid = entry.connection.isValid(validationTimeoutSeconds);
+			} catch (SQLException e) {
+				valid = false;
+			}
+			if (!valid) {
+				retire(entry);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isExpired(PoolEntry entry, long now) {
+		return maxLifetimeMillis > 0 && now - entry.createdMillis >= maxLifetimeMillis;
+	}
+
+	/**
+	 * Returns a connection to the pool once its handle is closed
+	 */
+	void release(PoolEntry entry, boolean used) {
+
+		boolean reusable = !closed && entry.resettable;
+		if (reusable) {
+			try {
+				entry.reset(used);
+			} catch (SQLException | RuntimeException e) {
+				reusable = false;
+			}
+		}
+
+		long now = System.currentTimeMillis();
+		entry.lastUsedMillis = now;
+		if (reusable && !isExpired(entry, now)) {
+			entry.state.set(IDLE);
+			lastEntryByThread.set(entry);
+		} else {
+			retire(entry);
+		}
+
+		checkoutPermits.release();
+	}
+
+	private void retire(PoolEntry entry) {
+		entry.state.set(RETIRED);
+		if (entries.remove(entry)) {
+			entryCount.decrementAndGet();
+		}
+		closeQuietly(entry.connection);
+	}
+
+	/**
+	 * Closes connections which have been idle for longer than the idle timeout or have exceeded their maximum lifetime.
+	 * Runs at most once per housekeeping interval, on whichever thread borrows a connection first after it has elapsed
+	 */
+	private void housekeep() {
+		long now = System.currentTimeMillis();
+		long next = nextHousekeepingMillis.get();
+		if (now < next || !nextHousekeepingMillis.compareAndSet(next, now + HOUSEKEEPING_INTERVAL_MILLIS)) {
+			return;
+		}
+		for (PoolEntry entry : entries) {
+			if (entry.tryReserve()) {
+				if (isExpired(entry, now) || (idleTimeoutMillis > 0 && now - entry.lastUsedMillis >= idleTimeoutMillis)) {
+					retire(entry);
+				} else {
+					entry.state.set(IDLE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle connections and stops handing out new ones. Connections in use are closed once they are returned
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		for (PoolEntry entry : entries) {
+			if (entry.tryReserve()) {
+				retire(entry);
+			}
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		if (connection != null) {
+			try {
+				connection.close();
+			} catch (SQLException | RuntimeException e) {
+				// Connection is being discarded regardless
+			}
+		}
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return unpooledDataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		unpooledDataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		unpooledDataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return unpooledDataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException(getClass() + " does not support parent loggers");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> classToUnwrap) throws SQLException {
+		if (classToUnwrap.isInstance(this)) {
+			return classToUnwrap.cast(this);
+		}
+		throw new SQLException(getClass() + " does not wrap " + classToUnwrap);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> c) throws SQLException {
+		return c.isInstance(this);
+	}
+
+}
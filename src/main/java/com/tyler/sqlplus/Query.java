@@ -11,17 +11,12 @@ import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.mapper.ResultStream;
 import com.tyler.sqlplus.mapper.RowMapper;
 import com.tyler.sqlplus.mapper.RowMapperFactory;
-import com.tyler.sqlplus.utility.Fields;
-import javassist.util.proxy.Proxy;
 
-import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -33,36 +28,75 @@ import static java.util.stream.Collectors.toList;
  */
 public class Query {
 
-	private static final String REGEX_PARAM = ":\\w+|\\?";
-
 	/** The current session which constructed this query */
 	private Session session;
 
-	/** The raw SQl for this query */
-	private String sql;
-
-	/** The current parameter batch of this query. Queries may have 1 to many parameter batches */
-	private LinkedHashMap<Integer, Object> currentParamBatch = new LinkedHashMap<>();
+	/** The parsed SQL for this query, shared by all queries created from the same raw SQL */
+	private CompiledSQL compiledSQL;
 
-	/** All parameter batches for this query */
-	private List<LinkedHashMap<Integer, Object>> paramBatches = new ArrayList<>();
+	/**
+	 * All parameter batches for this query, including the current batch being built. Queries may have 1 to many parameter
+	 * batches, which are stored by column to keep large batches compact
+	 */
+	private ParameterBatchBuffer paramBatches;
 
 	/**
 	 * A mapping of parameter labels to their corresponding ordinal indices in this query.
 	 * <br/>
-	 * Queries may contain both string parameter labels and raw '?' parameter labels. For each query, a mapping
-	 * is constructed to associate parameter labels to their respective indices
+	 * Queries may contain both string parameter labels and raw '?' parameter labels. The mapping is taken from the
+	 * compiled SQL, so it is only computed once per distinct SQL string
 	 */
-	private Map<String, Integer> paramLabel_paramIndex = new HashMap<>();
+	private Map<String, Integer> paramLabel_paramIndex;
 
 	/** Conversion registry for this query. By default, this field will be set to the default conversion registry singleton instance */
-	private ConversionRegistry conversionRegistry = ConversionRegistry.getDefault();
+	private ConversionRegistry conversionRegistry = ConversionRegistry.getShared();
+
+	/** Number of finished parameter batches at which they are sent to the database ahead of execution. 0 to never send early */
+	private int batchFlushSize;
+
+	/** Class to read the generated keys of flushed batches as, or null if keys are not read for flushed batches */
+	private Class<?> flushKeyClass;
+
+	/** Whether any parameter batches have been flushed since this query was last executed */
+	private boolean flushed;
+
+	/** Update counts of flushed parameter batches, in batch order. Only the first flushedUpdateCount elements are used */
+	private int[] flushedUpdateCounts = new int[0];
+
+	private int flushedUpdateCount;
+
+	/** Generated keys of flushed parameter batches, in batch order, if a key class was given */
+	private List<Object> flushedKeys = new ArrayList<>();
+
+	/** Maximum number of parameter batches to insert per multi-row insert statement. 0 to not rewrite batched inserts */
+	private int multiRowInsertSize;
+
+	/** Number of mapped rows a background reader may read ahead of the consumer. 0 to read rows on the consuming thread */
+	private int prefetchSize;
+
+	/** Number of rows the driver is asked to fetch per round trip. 0 for the driver's default */
+	private int fetchSize;
+
+	/** Maximum number of rows any result set of this query may contain. 0 for no limit */
+	private int maxRows;
+
+	/** Seconds the driver waits for this query to execute before cancelling it. 0 for no timeout */
+	private int queryTimeoutSeconds;
+
+	/** Type and concurrency of the result sets produced by this query */
+	private int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+	private int resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
 	
 	/** Should only be constructed by the Session class */
 	Query(String sql, Session session) {
+		this(CompiledSQL.compile(sql), session);
+	}
+
+	Query(CompiledSQL compiledSQL, Session session) {
 		this.session = session;
-		this.sql = sql;
-		this.paramLabel_paramIndex = parseParams(sql);
+		this.compiledSQL = compiledSQL;
+		this.paramLabel_paramIndex = compiledSQL.getParamIndices();
+		this.paramBatches = new ParameterBatchBuffer(compiledSQL.getParameterCount());
 	}
 	
 	public Query setParameter(int index, Object val) {
@@ -78,7 +112,134 @@ public class Query {
 			throw new QueryStructureException("Unknown query parameter: " + key);
 		}
 		int paramIndex = paramLabel_paramIndex.get(key);
-		currentParamBatch.put(paramIndex, val);
+		paramBatches.set(paramIndex - 1, val);
+		return this;
+	}
+
+	/**
+	 * Sends the parameter batches of this query to the database each time the given number of batches has been finished,
+	 * rather than holding every batch until the query is executed. This bounds the memory used by large batched updates.
+	 * The update counts of flushed batches are included in those returned by {@link #executeUpdate()}.
+	 * <br/>
+	 * 0, the default, sends all batches at once when the query is executed
+	 */
+	public Query setBatchFlushSize(int batchFlushSize) {
+		return setBatchFlushSize(batchFlushSize, null);
+	}
+
+	/**
+	 * Sends the parameter batches of this query to the database each time the given number of batches has been finished,
+	 * reading the generated keys of each flushed chunk as instances of the given class. The keys of flushed batches are
+	 * included in those returned by {@link #executeUpdate(Class)}, which must be called with the same class
+	 */
+	public Query setBatchFlushSize(int batchFlushSize, Class<?> keyClass) {
+		if (batchFlushSize < 0) {
+			throw new IllegalArgumentException("Batch flush size cannot be negative");
+		}
+		this.batchFlushSize = batchFlushSize;
+		this.flushKeyClass = keyClass;
+		return this;
+	}
+
+	/**
+	 * Executes the parameter batches of this query as multi-row inserts of up to the given number of rows each, rather than
+	 * as one statement execution per batch. Only applies to 'insert ... values (...)' statements whose VALUES row is the
+	 * last clause and contains all parameters; other statements are batched as normal. The number of rows per statement is
+	 * also limited to keep under {@link MultiRowInsert#MAX_PARAMETERS_PER_STATEMENT} parameters.
+	 * <br/>
+	 * Update counts are still reported per batch. Each batch inserted by a multi-row statement is reported as 1 row, unless
+	 * the statement's count differs from its number of rows, in which case its batches are reported as
+	 * {@link Statement#SUCCESS_NO_INFO}. Generated keys can only be read if the driver returns a key for every inserted
+	 * row, otherwise an {@link SQLRuntimeException} is thrown.
+	 * <br/>
+	 * 0, the default, disables rewriting
+	 */
+	public Query setMultiRowInsertSize(int multiRowInsertSize) {
+		if (multiRowInsertSize < 0) {
+			throw new IllegalArgumentException("Multi-row insert size cannot be negative");
+		}
+		this.multiRowInsertSize = multiRowInsertSize;
+		return this;
+	}
+
+	/**
+	 * Reads and maps the results of {@link #streamAs}, and so of {@link #fetchAs} and {@link #batchProcess}, on a background
+	 * thread, up to the given number of rows ahead of the consumer. Waiting on the driver to fetch rows then overlaps with
+	 * processing them, rather than alternating with it. The reader waits whenever it is the given number of rows ahead, so
+	 * memory use stays bounded, and closing the stream early stops it.
+	 * <br/>
+	 * The reader uses the connection while the stream is open, so other statements of the session run concurrently with it
+	 * contend with it for the connection, as the driver allows. Streams of prefetched rows are never split when made parallel.
+	 * <br/>
+	 * 0, the default, reads rows on the consuming thread as they are needed
+	 */
+	public Query setPrefetchSize(int prefetchSize) {
+		if (prefetchSize < 0) {
+			throw new IllegalArgumentException("Prefetch size cannot be negative");
+		}
+		this.prefetchSize = prefetchSize;
+		return this;
+	}
+
+	/**
+	 * Hints to the driver how many rows to fetch per round trip while reading results. Together with the default forward-only,
+	 * read-only cursor, this lets {@link #streamAs} and {@link #batchProcess} read large results with bounded memory on
+	 * drivers which otherwise buffer the whole result client-side:
+	 * <ul>
+	 *     <li>MySQL only streams rows one at a time, with a fetch size of {@link Integer#MIN_VALUE}, unless the connection
+	 *     sets useCursorFetch=true, in which case any positive fetch size is honoured</li>
+	 *     <li>PostgreSQL only honours the fetch size inside a transaction, so the query must run in
+	 *     {@link SQLPlus#transact}, not through the auto-commit {@link SQLPlus#query} path</li>
+	 * </ul>
+	 * 0, the default, leaves the fetch size up to the driver
+	 */
+	public Query setFetchSize(int fetchSize) {
+		if (fetchSize < 0 && fetchSize != Integer.MIN_VALUE) {
+			throw new IllegalArgumentException("Fetch size cannot be negative");
+		}
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	/**
+	 * Limits the number of rows any result set of this query contains, silently dropping the rest. 0, the default, for no limit
+	 */
+	public Query setMaxRows(int maxRows) {
+		if (maxRows < 0) {
+			throw new IllegalArgumentException("Max rows cannot be negative");
+		}
+		this.maxRows = maxRows;
+		return this;
+	}
+
+	/**
+	 * Sets the number of seconds the driver waits for this query to execute before cancelling it, in which case execution
+	 * fails with an {@link SQLRuntimeException}. 0, the default, for no timeout
+	 */
+	public Query setQueryTimeout(int seconds) {
+		if (seconds < 0) {
+			throw new IllegalArgumentException("Query timeout cannot be negative");
+		}
+		this.queryTimeoutSeconds = seconds;
+		return this;
+	}
+
+	/**
+	 * Sets the type and concurrency of the result sets produced by this query, as the {@link ResultSet} TYPE_ and CONCUR_
+	 * constants. Defaults to {@link ResultSet#TYPE_FORWARD_ONLY} and {@link ResultSet#CONCUR_READ_ONLY}, which are required
+	 * by most drivers to stream results. Ignored for updates returning generated keys
+	 */
+	public Query setResultSetType(int resultSetType, int resultSetConcurrency) {
+		if (resultSetType != ResultSet.TYPE_FORWARD_ONLY
+		    && resultSetType != ResultSet.TYPE_SCROLL_INSENSITIVE
+		    && resultSetType != ResultSet.TYPE_SCROLL_SENSITIVE) {
+			throw new IllegalArgumentException("Unknown result set type " + resultSetType);
+		}
+		if (resultSetConcurrency != ResultSet.CONCUR_READ_ONLY && resultSetConcurrency != ResultSet.CONCUR_UPDATABLE) {
+			throw new IllegalArgumentException("Unknown result set concurrency " + resultSetConcurrency);
+		}
+		this.resultSetType = resultSetType;
+		this.resultSetConcurrency = resultSetConcurrency;
 		return this;
 	}
 
@@ -142,33 +303,140 @@ public class Query {
 		}
 	}
 
+	/**
+	 * Executes this query, streaming over the results mapped to the given POJO class. The result set is closed and the
+	 * underlying statement is returned to the session's statement cache once the results are exhausted, the stream is closed
+	 * or a terminal operation returns, even one such as findFirst() which leaves rows unread. Streams still open when the
+	 * session ends are closed with it, and reported to the leak listener of {@link SQLPlus#setLeakListener}.
+	 *
+	 * Rows are always read and mapped by one thread at a time, but if the stream is made parallel, they are handed to the
+	 * later stages of the pipeline in chunks which run concurrently on the fork-join pool. See also {@link #setPrefetchSize}
+	 */
 	public <T> Stream<T> streamAs(Class<T> klass) {
-		RowMapper<T> mapper = RowMapperFactory.newMapper(klass, conversionRegistry, session);
-		return stream().map(rs -> {
-			try {
-				return mapper.map(rs);
-			} catch (SQLException e) {
-				throw new SQLRuntimeException(e);
+		PreparedStatement ps = prepareStatement(false);
+		ResultSet rs = null;
+		try {
+			rs = ps.executeQuery();
+			Stream<T> results;
+			if (prefetchSize > 0) {
+				results = ResultStream.prefetchingStream(rs, RowMapperFactory.newMapper(klass, conversionRegistry, session), prefetchSize, () -> streamFinished(ps));
+			} else {
+				results = ResultStream.stream(rs, RowMapperFactory.newMapper(klass, conversionRegistry, session), () -> streamFinished(ps));
 			}
-		});
+			session.streamOpened(ps, results);
+			return results;
+		} catch (SQLException e) {
+			streamFailed(ps, rs, e);
+			throw new SQLRuntimeException(e);
+		} catch (RuntimeException e) {
+			streamFailed(ps, rs, e);
+			throw e;
+		}
 	}
 	
+	/**
+	 * Executes this query, streaming over the raw result set. The result set is closed and the underlying statement is
+	 * returned to the session's statement cache once the results are exhausted, the stream is closed or a terminal operation
+	 * returns, so the result set cannot be read after the terminal operation. Streams still open when the session ends are
+	 * closed with it
+	 */
 	public Stream<ResultSet> stream() {
+		PreparedStatement ps = prepareStatement(false);
+		ResultSet rs = null;
 		try {
-			PreparedStatement ps = prepareStatement(false);
-			return ResultStream.stream(ps.executeQuery());
+			rs = ps.executeQuery();
+			Stream<ResultSet> results = ResultStream.stream(rs, () -> streamFinished(ps));
+			session.streamOpened(ps, results);
+			return results;
 		} catch (SQLException e) {
+			streamFailed(ps, rs, e);
 			throw new SQLRuntimeException(e);
+		} catch (RuntimeException e) {
+			streamFailed(ps, rs, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes the result set of a stream which could not be opened, if the query was executed, and returns the statement to
+	 * the session's statement cache
+	 */
+	private void streamFailed(PreparedStatement ps, ResultSet rs, Exception failure) {
+		if (rs != null) {
+			try {
+				rs.close();
+			} catch (SQLException e) {
+				failure.addSuppressed(e);
+			}
 		}
+		session.statementCache.release(ps);
+	}
+
+	private void streamFinished(PreparedStatement ps) {
+		session.streamClosed(ps);
+		session.statementCache.release(ps);
 	}
 
 	/**
-	 * Execute this query's payload as an update statement, returning an array of update counts for each batched statement
+	 * Execute this query's payload as an update statement, returning an array of update counts for each batched statement,
+	 * including any batches already flushed
 	 */
 	public int[] executeUpdate() {
-		try {
-			PreparedStatement ps = prepareStatement(false);
 
+		if (paramBatches.hasPending()) {
+			finishBatch();
+		}
+
+		int[] affectedRowsPerBatch = flushed && paramBatches.isEmpty() ? new int[0] : executeBatches(null, null);
+		if (!flushed) {
+			return affectedRowsPerBatch;
+		}
+
+		appendFlushedUpdateCounts(affectedRowsPerBatch);
+		int[] allAffectedRows = Arrays.copyOf(flushedUpdateCounts, flushedUpdateCount);
+		resetFlushed();
+		return allAffectedRows;
+	}
+	
+	/**
+	 * Executes this query's payload as an update statement, returning the generated keys as instances of the given class,
+	 * including those of any batches already flushed
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> executeUpdate(Class<T> targetKeyClass) {
+
+		if (paramBatches.hasPending()) {
+			finishBatch();
+		}
+
+		if (flushed && flushKeyClass != targetKeyClass) {
+			throw new QueryStructureException(
+				"Generated keys of flushed batches were read as " + flushKeyClass + ", cannot return them as " + targetKeyClass);
+		}
+
+		List<T> keys = flushed ? (List<T>) flushedKeys : new ArrayList<>();
+		if (!flushed || !paramBatches.isEmpty()) {
+			executeBatches(targetKeyClass, keys);
+		}
+		resetFlushed();
+		return keys;
+	}
+
+	/**
+	 * Executes all finished parameter batches as an update statement, adding the generated keys to the given list if a key
+	 * class is given
+	 */
+	private <T> int[] executeBatches(Class<T> keyClass, List<T> keys) {
+
+		if (multiRowInsertSize > 1 && paramBatches.size() > 1) {
+			MultiRowInsert multiRowInsert = compiledSQL.getMultiRowInsert();
+			if (multiRowInsert != null) {
+				return executeMultiRowInserts(multiRowInsert, keyClass, keys);
+			}
+		}
+
+		PreparedStatement ps = prepareStatement(keyClass != null);
+		try {
 			int[] affectedRowsPerBatch;
 			if (paramBatches.size() > 1) {
 				affectedRowsPerBatch = ps.executeBatch();
@@ -176,51 +444,146 @@ public class Query {
 				affectedRowsPerBatch = new int[]{ ps.executeUpdate() };
 			}
 
+			if (keyClass != null) {
+				readGeneratedKeys(ps, keyClass, keys);
+			}
+
 			return affectedRowsPerBatch;
 		}
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			session.statementCache.release(ps);
+		}
 	}
-	
+
 	/**
-	 * Executes this query's payload as an update statement, returning the generated keys as instances of the given class
+	 * Executes all finished parameter batches as multi-row inserts. Batches are inserted in order, by as many statements of
+	 * the maximum row count as possible, sent together with executeBatch(), followed by one statement for each power of 2
+	 * which makes up the remaining rows. This keeps the number of distinct statement shapes, and so the number of statements
+	 * prepared, small
 	 */
-	public <T> List<T> executeUpdate(Class<T> targetKeyClass) {
+	private <T> int[] executeMultiRowInserts(MultiRowInsert multiRowInsert, Class<T> keyClass, List<T> keys) {
+
+		int batchCount = paramBatches.size();
+		int rowsPerStatement = Math.min(multiRowInsertSize, multiRowInsert.maxRowsPerStatement());
+		BindingPlan bindingPlan = compiledSQL.getBindingPlan(paramBatches.signature(), conversionRegistry);
+		int[] affectedRowsPerBatch = new int[batchCount];
+
+		int batch = 0;
+		if (batchCount >= rowsPerStatement) {
+			batch = executeMultiRowInserts(multiRowInsert, bindingPlan, batch, rowsPerStatement, batchCount / rowsPerStatement, affectedRowsPerBatch, keyClass, keys);
+		}
+		while (batch < batchCount) {
+			batch = executeMultiRowInserts(multiRowInsert, bindingPlan, batch, Integer.highestOneBit(batchCount - batch), 1, affectedRowsPerBatch, keyClass, keys);
+		}
+
+		return affectedRowsPerBatch;
+	}
+
+	/**
+	 * Inserts consecutive parameter batches, starting from the given batch, with the given number of statements of the given
+	 * row count.
+	 * @return The index of the next batch to insert
+	 */
+	private <T> int executeMultiRowInserts(MultiRowInsert multiRowInsert, BindingPlan bindingPlan, int firstBatch, int rows, int statements,
+	                                       int[] affectedRowsPerBatch, Class<T> keyClass, List<T> keys) {
+
+		String sql = rows == 1 ? compiledSQL.getFormattedSQL() : multiRowInsert.getSQL(rows);
+		PreparedStatement ps = borrowStatement(sql, keyClass != null);
 		try {
-			PreparedStatement ps = prepareStatement(true);
-			if (paramBatches.size() > 1) {
-				ps.executeBatch();
-			} else {
-				ps.executeUpdate();
+			int parameterCount = compiledSQL.getParameterCount();
+			int batch = firstBatch;
+			for (int statement = 0; statement < statements; statement++) {
+				for (int row = 0; row < rows; row++, batch++) {
+					bindingPlan.bind(ps, paramBatches, batch, row * parameterCount);
+				}
+				if (statements > 1) {
+					ps.addBatch();
+				}
 			}
-			
-			List<T> keys = new ArrayList<>();
-			ResultSet rsKeys = ps.getGeneratedKeys();
-			
-			SQLConverter<T> converter = conversionRegistry.getConverter(targetKeyClass);
-			while (rsKeys.next()) {
-				keys.add(converter.read(rsKeys, 1, targetKeyClass));
+
+			int[] affectedRowsPerStatement = statements > 1 ? ps.executeBatch() : new int[]{ ps.executeUpdate() };
+			for (int statement = 0; statement < statements; statement++) {
+				int affectedRows = affectedRowsPerStatement[statement];
+				int affectedRowsPerRow = rows == 1 ? affectedRows : affectedRows == rows ? 1 : Statement.SUCCESS_NO_INFO;
+				int statementStart = firstBatch + statement * rows;
+				Arrays.fill(affectedRowsPerBatch, statementStart, statementStart + rows, affectedRowsPerRow);
 			}
 
-			return keys;
+			if (keyClass != null) {
+				int keysBefore = keys.size();
+				readGeneratedKeys(ps, keyClass, keys);
+				int keysRead = keys.size() - keysBefore;
+				if (keysRead != rows * statements) {
+					throw new SQLRuntimeException(
+						"Driver returned " + keysRead + " generated keys for " + rows * statements + " rows inserted by multi-row inserts, " +
+						"disable multi-row inserts to read generated keys");
+				}
+			}
+
+			return batch;
 		}
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			session.statementCache.release(ps);
+		}
+	}
+
+	private <T> void readGeneratedKeys(PreparedStatement ps, Class<T> keyClass, List<T> keys) throws SQLException {
+		SQLConverter<T> converter = conversionRegistry.getConverter(keyClass);
+		try (ResultSet rsKeys = ps.getGeneratedKeys()) {
+			while (rsKeys.next()) {
+				keys.add(converter.read(rsKeys, 1, keyClass));
+			}
+		}
 	}
 
 	/**
-	 * Creates a PreparedStatement and then applies all parameter batches stored in this query to it. If there is a running manual parameter batch
-	 * that has not been queued yet, that will also be added to the batch queue.
+	 * Sends all finished parameter batches to the database, keeping their update counts and generated keys until this
+	 * query is executed, and then discards the batches
+	 */
+	@SuppressWarnings("unchecked")
+	private void flushBatches() {
+		appendFlushedUpdateCounts(executeBatches((Class<Object>) flushKeyClass, flushedKeys));
+		paramBatches.clearFinished();
+		flushed = true;
+	}
+
+	private void appendFlushedUpdateCounts(int[] updateCounts) {
+		int required = flushedUpdateCount + updateCounts.length;
+		if (required > flushedUpdateCounts.length) {
+			flushedUpdateCounts = Arrays.copyOf(flushedUpdateCounts, Math.max(required, flushedUpdateCounts.length * 2));
+		}
+		System.arraycopy(updateCounts, 0, flushedUpdateCounts, flushedUpdateCount, updateCounts.length);
+		flushedUpdateCount = required;
+	}
+
+	private void resetFlushed() {
+		if (flushed) {
+			flushed = false;
+			flushedUpdateCounts = new int[0];
+			flushedUpdateCount = 0;
+			flushedKeys = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Borrows a PreparedStatement from the session's statement cache and then applies all parameter batches stored in this query to it. If there
+	 * is a running manual parameter batch that has not been queued yet, that will also be added to the batch queue. Callers are responsible
+	 * for releasing the statement back to the cache.
 	 * 
 	 * Queries which have more than 1 parameter batch will result in a call to addBatch() on the underlying PreparedStatement object for each batch.
-	 * Queries with only 1 parameter batch will simply apply each parameter in the batch and then return
+	 * Queries with only 1 parameter batch will simply apply each parameter in the batch and then return.
+	 * 
+	 * Parameters are applied through the {@link BindingPlan} cached on the compiled SQL for the parameter types of this query's batches
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private PreparedStatement prepareStatement(boolean returnKeys) {
 		
-		if (!currentParamBatch.isEmpty()) {
+		if (paramBatches.hasPending()) {
 			finishBatch();
 		}
 		
@@ -228,58 +591,52 @@ public class Query {
 			throw new QueryStructureException("No parameters set");
 		}
 		
-		String formattedSql = getFormattedSQL();
-		PreparedStatement ps = Functions.runSQL(() -> session.conn.prepareStatement(formattedSql, returnKeys ? Statement.RETURN_GENERATED_KEYS : 0));
-			
-		paramBatches.forEach(paramBatch -> {
-
-			paramBatch.forEach((paramIndex, objParam) -> {
-				if (objParam == null) {
-					Functions.runSQL(() -> ps.setObject(paramIndex, null));
-				}
-				else {
-					SQLConverter converter = conversionRegistry.getConverter(objParam.getClass());
-					Functions.runSQL(() -> converter.write(ps, paramIndex, objParam));
+		PreparedStatement ps = borrowStatement(compiledSQL.getFormattedSQL(), returnKeys);
+
+		try {
+			BindingPlan bindingPlan = compiledSQL.getBindingPlan(paramBatches.signature(), conversionRegistry);
+			boolean isBatch = paramBatches.size() > 1;
+			for (int batch = 0, batchCount = paramBatches.size(); batch < batchCount; batch++) {
+				bindingPlan.bind(ps, paramBatches, batch);
+				if (isBatch) {
+					ps.addBatch();
 				}
-			});
-			
-			if (this.paramBatches.size() > 1) {
-				Functions.runSQL(() -> ps.addBatch());
 			}
-		});
-		
+		} catch (SQLException e) {
+			session.statementCache.release(ps);
+			throw new SQLRuntimeException(e);
+		} catch (RuntimeException e) {
+			session.statementCache.release(ps);
+			throw e;
+		}
+
 		return ps;
 	}
 	
 	/**
-	 * Binds the parameters in the given POJO class to the current parameter batch for his query
+	 * Borrows a statement for the given SQL from the session's statement cache, with the cursor type and driver hints of this query
 	 */
-	public Query bind(Object o) {
-		
-		Class<?> klass = o.getClass();
-		
-		// Proxies are bound when lazy loading related entities. In this case, we want to pull bind fields from the proxy's superclass
-		if (Proxy.class.isAssignableFrom(klass)) {
-			klass = klass.getSuperclass();
+	private PreparedStatement borrowStatement(String sql, boolean returnKeys) {
+		PreparedStatement ps = Functions.runSQL(() -> session.statementCache.prepare(sql, returnKeys, resultSetType, resultSetConcurrency));
+		try {
+			session.statementCache.applyHints(ps, fetchSize, maxRows, queryTimeoutSeconds);
+		} catch (SQLException e) {
+			session.statementCache.release(ps);
+			throw new SQLRuntimeException(e);
 		}
+		return ps;
+	}
 
-		boolean isCompleteBatch = true;
-		for (String paramLabel : paramLabel_paramIndex.keySet()) {
-			
-			Field mappedField;
-			try {
-				mappedField = klass.getDeclaredField(paramLabel);
-			} catch (NoSuchFieldException e) {
-				isCompleteBatch = false;
-				continue; // This parameter will need to be set manually
-			}
-			
-			Object member = Fields.get(mappedField, o);
-			Integer paramIndex = paramLabel_paramIndex.get(paramLabel);
-			currentParamBatch.put(paramIndex, member);
-		}
+	/**
+	 * Binds the parameters in the given POJO class to the current parameter batch for his query. Parameters are bound from
+	 * fields of the same name; if every parameter is bound, the batch is finished. Any others must be set manually
+	 */
+	public Query bind(Object o) {
+		
+		ObjectBindingPlan bindingPlan = compiledSQL.getObjectBindingPlan(o.getClass());
+		bindingPlan.bind(o, paramBatches);
 
-		if (isCompleteBatch) {
+		if (bindingPlan.isComplete) {
 			finishBatch();
 		}
 
@@ -287,13 +644,14 @@ public class Query {
 	}
 
 	/**
-	 * Finishes and validates the current running manual parameter batch
+	 * Finishes and validates the current running manual parameter batch. If a batch flush size is set and has been reached,
+	 * all finished batches are sent to the database
 	 */
 	public Query finishBatch() {
 
 		List<String> missingParams = new ArrayList<>();
 		paramLabel_paramIndex.forEach((param, index) -> {
-			if (!currentParamBatch.containsKey(index)) {
+			if (!paramBatches.isSet(index - 1)) {
 				missingParams.add(param);
 			}
 		});
@@ -301,53 +659,16 @@ public class Query {
 			throw new QueryStructureException("Missing parameter values for the following parameters: " + missingParams);
 		}
 
-		paramBatches.add(currentParamBatch);
-
-		currentParamBatch = new LinkedHashMap<>();
+		paramBatches.finishPending();
+		if (batchFlushSize > 0 && paramBatches.size() >= batchFlushSize) {
+			flushBatches();
+		}
 		return this;
 	}
 	
-	/**
-	 * Formats this query's SQL by replacing all parameter labels with '?'
-	 */
-	private String getFormattedSQL() {
-		return sql.replaceAll(REGEX_PARAM, "?");
-	}
-
-	/**
-	 * Produces a mapping of parameter labels to the 1-based index at which they appear in the given query string.
-	 * 
-	 * For any '?' params, the key will be equal to the string value of the index. For example, for the query
-	 * 'select fieldA from table1 where fieldA = ? and fieldB = ?', a mapping would be produced with the keys
-	 * "1" and "2" and the values 1 and 2.
-	 */
-	private static Map<String, Integer> parseParams(String sql) {
-		
-		Map<String, Integer> paramLabel_index = new HashMap<>();
-		
-		int paramIndex = 0;
-		Matcher paramsMatcher = Pattern.compile(REGEX_PARAM).matcher(sql);
-		while (paramsMatcher.find()) {
-			paramIndex++;
-			String paramLabel = paramsMatcher.group();
-			if (paramLabel.equals("?")) {
-				paramLabel_index.put(paramIndex + "", paramIndex);
-			}
-			else {
-				paramLabel = paramLabel.substring(1);
-				if (paramLabel_index.containsKey(paramLabel)) {
-					throw new QueryStructureException("Duplicate parameter '" + paramLabel + "' in query:\n" + sql);
-				}
-				paramLabel_index.put(paramLabel, paramIndex);
-			}
-		}
-		
-		return paramLabel_index;
-	}
-
 	@Override
 	public int hashCode() {
-		return Objects.hash(getFormattedSQL(), getParameterValues());
+		return Objects.hash(compiledSQL.getFormattedSQL(), getParameterValues());
 	}
 
 	@Override
@@ -357,7 +678,7 @@ public class Query {
 		}
 		if (o instanceof Query) {
 			Query other = (Query) o;
-			return Objects.equals(getFormattedSQL(), other.getFormattedSQL()) &&
+			return (compiledSQL == other.compiledSQL || compiledSQL.getFormattedSQL().equals(other.compiledSQL.getFormattedSQL())) &&
 			       Objects.equals(getParameterValues(), other.getParameterValues());
 		}
 		return false;
@@ -365,13 +686,12 @@ public class Query {
 
 	@Override
 	public String toString() {
-		return sql;
+		return compiledSQL.getSQL();
 	}
 
 	private Collection<Object> getParameterValues() {
 		Collection<Object> values = new ArrayList<>();
-		paramBatches.forEach(batch -> values.addAll(batch.values()));
-		values.addAll(currentParamBatch.values());
+		paramBatches.collectValues(values);
 		return values;
 	}
 
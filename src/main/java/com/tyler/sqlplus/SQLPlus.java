@@ -1,5 +1,6 @@
 package com.tyler.sqlplus;
 
+import com.tyler.sqlplus.exception.ResourceLeakException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
 import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.proxy.TransactionalService;
@@ -9,7 +10,11 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class is the primary entry point to the SQLPlus API.
@@ -19,14 +24,33 @@ import java.util.function.Supplier;
 public class SQLPlus {
 
 	private static final ThreadLocal<Session> CURRENT_THREAD_SESSION = new ThreadLocal<>();
+
+	private static final Consumer<ResourceLeakException> LOG_LEAKS =
+		leak -> Logger.getLogger(SQLPlus.class.getName()).log(Level.WARNING, leak.getMessage(), leak);
 	
 	private DataSource dataSource;
 
+	private final ConnectionMetrics connectionMetrics = new ConnectionMetrics(this::getDataSource);
+
+	private volatile long leakDetectionThresholdMillis;
+
+	private volatile Consumer<ResourceLeakException> leakListener = LOG_LEAKS;
+
+	private int statementCacheSize = StatementCache.DEFAULT_SIZE;
+
+	/** Statement cache counters accumulated from all sessions opened by this instance */
+	private final LongAdder statementCacheHits = new LongAdder();
+	private final LongAdder statementCacheMisses = new LongAdder();
+
 	@SuppressWarnings("unused")
 	private SQLPlus() {}
 	
+	/**
+	 * Creates an instance whose connections are pooled by a {@link PooledDataSource} with the default settings. The pool can
+	 * be configured or closed through {@link #getDataSource()}
+	 */
 	public SQLPlus(String url, String user, String pass) {
-		this(new BasicDataSource(url, user, pass));
+		this(new PooledDataSource(url, user, pass));
 	}
 	
 	public SQLPlus(Supplier<Connection> connectionFactory) {
@@ -57,6 +81,68 @@ public class SQLPlus {
 		this.dataSource = dataSource;
 	}
 
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of prepared statements cached by each session opened from this instance. A size of 0
+	 * disables statement caching
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("Statement cache size cannot be negative");
+		}
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Returns the number of statement cache hits across all completed sessions opened by this instance
+	 */
+	public long getStatementCacheHitCount() {
+		return statementCacheHits.sum();
+	}
+
+	/**
+	 * Returns the number of statement cache misses across all completed sessions opened by this instance
+	 */
+	public long getStatementCacheMissCount() {
+		return statementCacheMisses.sum();
+	}
+
+	/**
+	 * Returns the connection usage statistics of this instance
+	 */
+	public ConnectionMetrics getConnectionMetrics() {
+		return connectionMetrics;
+	}
+
+	public long getLeakDetectionThresholdMillis() {
+		return leakDetectionThresholdMillis;
+	}
+
+	/**
+	 * Enables leak detection: connections held by a session for longer than the given time are reported to the leak
+	 * listener, with the stack trace of where they were acquired. Result streams not exhausted or closed by the end of their
+	 * session, which the session then closes, are also reported with the stack trace of where they were created. Capturing
+	 * stack traces has a cost, so this is best suited to development and troubleshooting. 0, the default, disables leak
+	 * detection
+	 */
+	public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+		if (leakDetectionThresholdMillis < 0) {
+			throw new IllegalArgumentException("Leak detection threshold cannot be negative");
+		}
+		this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+	}
+
+	/**
+	 * Sets the listener which leaked connections and result streams are reported to. By default, leaks are logged as warnings
+	 * through java.util.logging
+	 */
+	public void setLeakListener(Consumer<ResourceLeakException> leakListener) {
+		this.leakListener = leakListener == null ? LOG_LEAKS : leakListener;
+	}
+
 	public <T> T createService(Class<T> klass) throws InstantiationException, IllegalAccessException {
 		return TransactionalService.create(klass, this);
 	}
@@ -94,6 +180,33 @@ public class SQLPlus {
 	 * using the given transaction isolation level
 	 */
 	public <T> T transactAndReturn(int isolation, Functions.ThrowingFunction<Session, T> action) {
+		return execute(isolation, false, action);
+	}
+
+	/**
+	 * Executes a read-only action using the default isolation level. See {@link #query(int, Functions.ThrowingFunction)}
+	 */
+	public <T> T query(Functions.ThrowingFunction<Session, T> action) {
+		return query(-1, action);
+	}
+
+	/**
+	 * Executes a read-only action against a database connection obtained from this instance's connection factory, using the
+	 * given transaction isolation level.
+	 * 
+	 * Unlike {@link #transactAndReturn}, the connection is left in auto-commit mode and marked read-only, so there is no
+	 * transaction to begin or commit; a single statement costs a single round trip. Connections from a
+	 * {@link PooledDataSource} track their settings and keep them between checkouts, so repeated reads do not pay a round
+	 * trip to apply them either. As every statement commits on its own, reads made up of several statements do not see a
+	 * consistent snapshot; use {@link #transactAndReturn} for those.
+	 * 
+	 * If a session is already bound to the current thread, the action joins it instead
+	 */
+	public <T> T query(int isolation, Functions.ThrowingFunction<Session, T> action) {
+		return execute(isolation, true, action);
+	}
+
+	private <T> T execute(int isolation, boolean readOnly, Functions.ThrowingFunction<Session, T> action) {
 
 		Session currentSession = CURRENT_THREAD_SESSION.get();
 		if (currentSession != null) {
@@ -108,22 +221,47 @@ public class SQLPlus {
 		Session session = null;
 		T result;
 		try {
-			session = new Session(dataSource.getConnection());
+			session = openSession();
 			if (isolation != -1) {
 				session.conn.setTransactionIsolation(isolation);
 			}
-			session.conn.setAutoCommit(false);
+			if (readOnly) {
+				if (!session.conn.getAutoCommit()) {
+					session.conn.setAutoCommit(true);
+				}
+				session.conn.setReadOnly(true);
+			} else {
+				// Connections from data sources which do not reset them on return may still be read-only from a query
+				if (session.conn.isReadOnly()) {
+					session.conn.setReadOnly(false);
+				}
+				session.conn.setAutoCommit(false);
+			}
 			CURRENT_THREAD_SESSION.set(session);
 			result = action.apply(session);
-			session.conn.commit();
+			if (!readOnly) {
+				session.commit();
+			}
 		}
 		catch (Exception e) {
 			CURRENT_THREAD_SESSION.remove();
-			session.rollback();
+			if (session != null) {
+				recordStatementCacheStats(session);
+				if (readOnly) {
+					try {
+						session.close();
+					} catch (IOException closeError) {
+						e.addSuppressed(closeError);
+					}
+				} else {
+					session.rollback();
+				}
+			}
 			throw new SQLRuntimeException(e);
 		}
 
 		CURRENT_THREAD_SESSION.remove();
+		recordStatementCacheStats(session);
 		try {
 			session.close();
 		} catch (IOException ex) {
@@ -132,8 +270,36 @@ public class SQLPlus {
 		return result;
 	}
 	
+	/**
+	 * Borrows a connection from the data source for a new session, recording how long the data source took to supply it
+	 */
+	private Session openSession() throws SQLException {
+		Connection conn = acquireConnection();
+		return new Session(conn, statementCacheSize, new ConnectionLease(connectionMetrics, leakDetectionThresholdMillis, leakListener));
+	}
+
+	private Connection acquireConnection() throws SQLException {
+		long start = System.nanoTime();
+		Connection conn;
+		try {
+			conn = dataSource.getConnection();
+		} catch (SQLException e) {
+			connectionMetrics.acquisitionFailed(e);
+			throw e;
+		}
+		connectionMetrics.acquired(System.nanoTime() - start);
+		return conn;
+	}
+
+	private void recordStatementCacheStats(Session session) {
+		statementCacheHits.add(session.statementCache.getHitCount());
+		statementCacheMisses.add(session.statementCache.getMissCount());
+	}
+
 	public int[] batchExec(String... stmts) {
-		try (Connection conn = dataSource.getConnection()) {
+		ConnectionLease lease = null;
+		try (Connection conn = acquireConnection()) {
+			lease = new ConnectionLease(connectionMetrics, leakDetectionThresholdMillis, leakListener);
 			Statement s = conn.createStatement();
 			for (String sql : stmts) {
 				s.addBatch(sql);
@@ -143,6 +309,11 @@ public class SQLPlus {
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			if (lease != null) {
+				lease.release();
+			}
+		}
 	}
 
 }
@@ -1,5 +1,6 @@
 package com.tyler.sqlplus;
 
+import com.tyler.sqlplus.exception.ResourceLeakException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
 import com.tyler.sqlplus.exception.SessionClosedException;
 
@@ -7,6 +8,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents an individual unit of work within the SqlPlus environment
@@ -18,9 +23,45 @@ public class Session implements Closeable {
 	 * JDBC connection object should ONLY every be used by the Query and SQLPlus classes
 	 */
 	Connection conn;
-	
+
+	/** Prepared statements reused by queries executed within this session */
+	StatementCache statementCache;
+
+	/** Instrumentation of this session's connection, or null if it is not tracked */
+	private final ConnectionLease lease;
+
+	/**
+	 * A result stream which has not been exhausted or closed yet
+	 */
+	private static class OpenStream {
+
+		private final AutoCloseable stream;
+
+		/** Where the stream was created if leak detection is enabled, otherwise null */
+		private final ResourceLeakException creationStack;
+
+		OpenStream(AutoCloseable stream, ResourceLeakException creationStack) {
+			this.stream = stream;
+			this.creationStack = creationStack;
+		}
+
+	}
+
+	/** Result streams opened in this session which have not been exhausted or closed, keyed by their statement */
+	private final Map<Object, OpenStream> openStreams = new IdentityHashMap<>();
+
 	Session(Connection conn) {
+		this(conn, StatementCache.DEFAULT_SIZE);
+	}
+
+	Session(Connection conn, int statementCacheSize) {
+		this(conn, statementCacheSize, null);
+	}
+
+	Session(Connection conn, int statementCacheSize, ConnectionLease lease) {
 		this.conn = conn;
+		this.statementCache = new StatementCache(conn, statementCacheSize);
+		this.lease = lease;
 	}
 
 	/**
@@ -55,6 +96,13 @@ public class Session implements Closeable {
 		}
 	}
 
+	/**
+	 * Returns the prepared statement cache for this session, which can be used to inspect hit / miss counts
+	 */
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
 	public boolean isOpen() {
 		try {
 			return !conn.isClosed();
@@ -64,14 +112,115 @@ public class Session implements Closeable {
 		}
 	}
 
+	/**
+	 * Registers a result stream opened over the given statement, until {@link #streamClosed} is called for it. Streams still
+	 * open when this session ends are closed with it
+	 */
+	void streamOpened(Object statement, AutoCloseable stream) {
+		ResourceLeakException creationStack = null;
+		if (lease != null && lease.isLeakDetectionEnabled()) {
+			creationStack = new ResourceLeakException("Result stream created here was not exhausted or closed before its session ended");
+		}
+		openStreams.put(statement, new OpenStream(stream, creationStack));
+	}
+
+	void streamClosed(Object statement) {
+		openStreams.remove(statement);
+	}
+
+	/**
+	 * Commits the transaction, first closing any result streams still open in this session. Their cursors would otherwise
+	 * still be open on the connection while it commits, which some drivers reject outright, such as MySQL while a result is
+	 * streamed row by row
+	 */
+	void commit() throws SQLException {
+		SQLRuntimeException streamFailure = closeOpenStreams();
+		if (streamFailure != null) {
+			throw streamFailure;
+		}
+		conn.commit();
+	}
+
 	void rollback() {
 		try {
-			conn.rollback();
-			conn.close();
+			SQLRuntimeException streamFailure = closeOpenStreams();
+			try {
+				conn.rollback();
+			} finally {
+				closeConnection();
+			}
+			if (streamFailure != null) {
+				throw streamFailure;
+			}
 		}
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			releaseLease();
+		}
+	}
+
+	/**
+	 * Reports and closes the result streams which are still open, releasing their result sets and statements. Every stream
+	 * is closed even if some fail to close
+	 * @return The first failure to close a stream, with any others suppressed, or null if all were closed
+	 */
+	private SQLRuntimeException closeOpenStreams() {
+		if (openStreams.isEmpty()) {
+			return null;
+		}
+		List<OpenStream> escaped = new ArrayList<>(openStreams.values());
+		openStreams.clear();
+		if (lease != null) {
+			List<ResourceLeakException> creationStacks = new ArrayList<>(escaped.size());
+			escaped.forEach(stream -> creationStacks.add(stream.creationStack));
+			lease.reportEscapedStreams(creationStacks);
+		}
+		SQLRuntimeException failure = null;
+		for (OpenStream stream : escaped) {
+			try {
+				stream.stream.close();
+			} catch (Exception e) {
+				SQLRuntimeException closeFailure = e instanceof SQLRuntimeException ? (SQLRuntimeException) e : new SQLRuntimeException(e);
+				if (failure == null) {
+					failure = closeFailure;
+				} else {
+					failure.addSuppressed(closeFailure);
+				}
+			}
+		}
+		return failure;
+	}
+
+	/**
+	 * Closes every cached statement and then the connection, which is closed even if statements fail to close, so that it
+	 * is always returned to its data source
+	 */
+	private void closeConnection() throws SQLException {
+		SQLRuntimeException statementFailure = null;
+		try {
+			statementCache.close();
+		} catch (SQLRuntimeException e) {
+			statementFailure = e;
+		}
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			if (statementFailure != null) {
+				e.addSuppressed(statementFailure);
+			}
+			throw e;
+		}
+		if (statementFailure != null) {
+			throw statementFailure;
+		}
+	}
+
+	private void releaseLease() {
+		if (lease != null) {
+			lease.release();
+		}
 	}
 
 	private void assertOpen() {
@@ -83,11 +232,18 @@ public class Session implements Closeable {
 	@Override
 	public void close() throws IOException {
 		try {
-			conn.close();
+			SQLRuntimeException streamFailure = closeOpenStreams();
+			closeConnection();
+			if (streamFailure != null) {
+				throw streamFailure;
+			}
 		}
-		catch (SQLException e) {
+		catch (SQLException | SQLRuntimeException e) {
 			throw new IOException(e);
 		}
+		finally {
+			releaseLease();
+		}
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * A least-recently-used cache of {@link PreparedStatement} objects for a single session, keyed by formatted SQL,
+ * whether or not generated keys are requested, and the type and concurrency of the result sets they produce.
+ * <br/><br/>
+ * Statements are borrowed from the cache for the duration of an execution and must be released back to it once their
+ * results are no longer needed. If a statement is requested while its cached instance is still borrowed (for instance,
+ * when the same query is executed while iterating over its own results), an uncached statement is prepared instead,
+ * which will be closed when it is released. Statements evicted from the cache are closed as soon as they are no longer in use.
+ * <br/><br/>
+ * Fetch size, max rows and query timeout hints are tracked per cached statement, so that a hint set by one borrower is
+ * reset before the statement is handed to the next, and unchanged hints are not sent to the driver again
+ */
+public class StatementCache {
+
+	/** The number of statements cached per session when no size is configured */
+	public static final int DEFAULT_SIZE = 32;
+
+	private final Connection conn;
+	private final int maxSize;
+	private final LinkedHashMap<Key, CachedStatement> statements;
+	private final Map<PreparedStatement, CachedStatement> borrowed = new IdentityHashMap<>();
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	StatementCache(Connection conn, int maxSize) {
+		this.conn = conn;
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<Key, CachedStatement>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+				if (size() <= StatementCache.this.maxSize) {
+					return false;
+				}
+				evict(eldest.getValue());
+				return true;
+			}
+
+		};
+	}
+
+	/**
+	 * Borrows a statement for the given formatted SQL and result set type and concurrency, preparing a new one if none is
+	 * cached or the cached one is in use. Statements returning generated keys are always prepared with the driver's default
+	 * result set type
+	 */
+	PreparedStatement prepare(String formattedSql, boolean returnKeys, int resultSetType, int resultSetConcurrency) throws SQLException {
+
+		Key key = new Key(formattedSql, returnKeys, resultSetType, resultSetConcurrency);
+		CachedStatement cached = maxSize > 0 ? statements.get(key) : null;
+
+		if (cached != null && !cached.inUse) {
+			hitCount++;
+			cached.inUse = true;
+			cached.ps.clearParameters();
+			cached.ps.clearBatch();
+			borrowed.put(cached.ps, cached);
+			return cached.ps;
+		}
+
+		missCount++;
+		PreparedStatement ps;
+		if (returnKeys || (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY)) {
+			ps = conn.prepareStatement(formattedSql, returnKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+		} else {
+			ps = conn.prepareStatement(formattedSql, resultSetType, resultSetConcurrency);
+		}
+		CachedStatement newStatement = new CachedStatement(ps);
+		newStatement.inUse = true;
+		if (cached == null && maxSize > 0) {
+			statements.put(key, newStatement);
+		} else {
+			newStatement.evicted = true; // Not owned by the cache, close once released
+		}
+		borrowed.put(ps, newStatement);
+		return ps;
+	}
+
+	/**
+	 * Applies the given fetch size, max rows and query timeout to a borrowed statement, only calling the driver for the hints
+	 * which differ from those last applied to it. 0 restores the driver's default for each hint
+	 */
+	void applyHints(PreparedStatement ps, int fetchSize, int maxRows, int queryTimeoutSeconds) throws SQLException {
+		CachedStatement cached = borrowed.get(ps);
+		if (cached == null) {
+			throw new IllegalStateException("Statement is not borrowed from this cache");
+		}
+		if (cached.fetchSize != fetchSize) {
+			ps.setFetchSize(fetchSize);
+			cached.fetchSize = fetchSize;
+		}
+		if (cached.maxRows != maxRows) {
+			ps.setMaxRows(maxRows);
+			cached.maxRows = maxRows;
+		}
+		if (cached.queryTimeoutSeconds != queryTimeoutSeconds) {
+			ps.setQueryTimeout(queryTimeoutSeconds);
+			cached.queryTimeoutSeconds = queryTimeoutSeconds;
+		}
+	}
+
+	/**
+	 * Returns a borrowed statement to the cache. Statements which are not owned by the cache are closed.
+	 * Releasing a statement which is not currently borrowed has no effect
+	 */
+	void release(PreparedStatement ps) {
+		CachedStatement released = borrowed.remove(ps);
+		if (released == null) {
+			return;
+		}
+		released.inUse = false;
+		if (released.evicted) {
+			closeStatement(released.ps);
+		}
+	}
+
+	/**
+	 * Closes all statements held by this cache. Every statement is closed even if some fail to close
+	 * @throws SQLRuntimeException With the first failure to close a statement, and any others suppressed
+	 */
+	void close() {
+		Set<PreparedStatement> toClose = Collections.newSetFromMap(new IdentityHashMap<>());
+		statements.values().forEach(cached -> toClose.add(cached.ps));
+		toClose.addAll(borrowed.keySet());
+		statements.clear();
+		borrowed.clear();
+
+		SQLException failure = null;
+		for (PreparedStatement ps : toClose) {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw new SQLRuntimeException(failure);
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int size() {
+		return statements.size();
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	private void evict(CachedStatement cached) {
+		evictionCount++;
+		cached.evicted = true;
+		if (!cached.inUse) {
+			closeStatement(cached.ps);
+		}
+	}
+
+	private void closeStatement(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			throw new SQLRuntimeException(e);
+		}
+	}
+
+	private static class CachedStatement {
+
+		private final PreparedStatement ps;
+		private boolean inUse;
+		private boolean evicted;
+
+		/** Hints last applied to the statement, which start at the JDBC defaults */
+		private int fetchSize;
+		private int maxRows;
+		private int queryTimeoutSeconds;
+
+		public CachedStatement(PreparedStatement ps) {
+			this.ps = ps;
+		}
+
+	}
+
+	private static class Key {
+
+		private final String sql;
+		private final boolean returnKeys;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+
+		public Key(String sql, boolean returnKeys, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.returnKeys = returnKeys;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((sql.hashCode() * 31 + (returnKeys ? 1 : 0)) * 31 + resultSetType) * 31 + resultSetConcurrency;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return returnKeys == other.returnKeys
+				&& resultSetType == other.resultSetType
+				&& resultSetConcurrency == other.resultSetConcurrency
+				&& sql.equals(other.sql);
+		}
+
+	}
+
+}
@@ -4,6 +4,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.sql.ResultSet;
 
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -11,6 +12,27 @@ public @interface SQLQuery {
 
 	int isolation() default -1;
 
+	/**
+	 * Whether to run the query through {@link com.tyler.sqlplus.SQLPlus#query}, on a read-only connection in auto-commit mode,
+	 * instead of in a transaction. Has no effect when called from inside an existing transaction
+	 */
+	boolean readOnly() default false;
+
+	/** See {@link com.tyler.sqlplus.Query#setFetchSize}. 0 for the driver's default */
+	int fetchSize() default 0;
+
+	/** See {@link com.tyler.sqlplus.Query#setMaxRows}. 0 for no limit */
+	int maxRows() default 0;
+
+	/** Query timeout in seconds, see {@link com.tyler.sqlplus.Query#setQueryTimeout}. 0 for no timeout */
+	int timeout() default 0;
+
+	/** See {@link com.tyler.sqlplus.Query#setResultSetType} */
+	int resultSetType() default ResultSet.TYPE_FORWARD_ONLY;
+
+	/** See {@link com.tyler.sqlplus.Query#setResultSetType} */
+	int resultSetConcurrency() default ResultSet.CONCUR_READ_ONLY;
+
 	String value();
 	
 }
@@ -17,6 +17,11 @@ public @interface SQLUpdate {
 
 	int isolation() default -1;
 
+	/**
+	 * What the annotated method returns. With GENERATED_KEYS, the keys generated for objects bound with @{@link BindObject}
+	 * are also assigned to their @{@link KeyField} annotated fields, in batch order, unless a key provider or key query is
+	 * given. The method may then return void, in which case keys are read as the type of the key field
+	 */
 	ReturnInfo returnInfo() default ReturnInfo.AFFECTED_ROWS;
 
 	/**
@@ -25,8 +30,18 @@ public @interface SQLUpdate {
 	Class<? extends KeyProvider> keyProvider() default KeyProvider.VoidKeyProvider.class;
 
 	/**
-	 * Defines SQL to execute to retrieve a new key. Either this or keyProvider() may be defined, not both
+	 * Defines SQL to execute to retrieve a new key. Either this or keyProvider() may be defined, not both.
+	 * <br/>
+	 * The query is executed once for every bound object, so a batch of n objects costs n round trips. To reserve keys for a
+	 * whole batch at once, give a keyProvider() subclass of {@link com.tyler.sqlplus.keyprovider.HiLoKeyProvider} instead,
+	 * reading hi values from a sequence
 	 */
 	String keyQuery() default "";
 
+	/**
+	 * Sends bound parameter batches to the database each time this many have been bound, rather than all at once. Useful for
+	 * bulk updates of large collections. 0 sends all batches at once
+	 */
+	int batchFlushSize() default 0;
+
 }
@@ -13,16 +13,29 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ConversionRegistry {
 
-	private static final Map<String, SQLConverter> DEFAULT_REGISTRY = new LinkedHashMap<>();
+	/**
+	 * The shared registry which every other registry falls back to. Its converters are read without locking, so it
+	 * costs nothing to use from any number of queries at once
+	 */
+	private static final ConversionRegistry DEFAULT_REGISTRY = new ConversionRegistry(null);
+
+	/** The built-in converters for Integer, Long, Double and Boolean, which write with the setter of the primitive type */
+	private static final Set<SQLConverter<?>> PRIMITIVE_SETTER_CONVERTERS = Collections.newSetFromMap(new IdentityHashMap<>());
+
 	static {
 
-		registerDefaultConverter(byte.class, new SQLConverter<Byte>() {
+		registerDefaultConverter(byte.class, new IndexReadingConverter<Byte>() {
 
 			@Override
 			public Class<Byte> getConvertedClass() {
@@ -30,7 +43,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Byte read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Byte read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getByte(column);
 			}
 
@@ -41,7 +54,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Byte.class, new SQLConverter<Byte>() {
+		registerDefaultConverter(Byte.class, new IndexReadingConverter<Byte>() {
 
 			@Override
 			public Class<Byte> getConvertedClass() {
@@ -49,7 +62,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Byte read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Byte read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				byte byteVal = rs.getByte(column);
 				return rs.wasNull() ? null : byteVal;
 			}
@@ -65,7 +78,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Integer.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(Integer.class, new IndexReadingConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -73,7 +86,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				int obj = rs.getInt(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -89,7 +102,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(int.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(int.class, new IndexReadingConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -97,7 +110,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getInt(column);
 			}
 
@@ -108,7 +121,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Integer.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(Integer.class, new IndexReadingConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -116,7 +129,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				int obj = rs.getInt(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -132,7 +145,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(short.class, new SQLConverter<Short>() {
+		registerDefaultConverter(short.class, new IndexReadingConverter<Short>() {
 
 			@Override
 			public Class<Short> getConvertedClass() {
@@ -140,7 +153,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Short read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Short read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getShort(column);
 			}
 
@@ -151,7 +164,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Short.class, new SQLConverter<Short>() {
+		registerDefaultConverter(Short.class, new IndexReadingConverter<Short>() {
 
 			@Override
 			public Class<Short> getConvertedClass() {
@@ -159,7 +172,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Short read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Short read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				short obj = rs.getShort(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -175,7 +188,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(long.class, new SQLConverter<Long>() {
+		registerDefaultConverter(long.class, new IndexReadingConverter<Long>() {
 
 			@Override
 			public Class<Long> getConvertedClass() {
@@ -183,7 +196,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Long read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Long read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getLong(column);
 			}
 
@@ -194,7 +207,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Long.class, new SQLConverter<Long>() {
+		registerDefaultConverter(Long.class, new IndexReadingConverter<Long>() {
 
 			@Override
 			public Class<Long> getConvertedClass() {
@@ -202,7 +215,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Long read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Long read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				long obj = rs.getLong(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -218,7 +231,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(float.class, new SQLConverter<Float>() {
+		registerDefaultConverter(float.class, new IndexReadingConverter<Float>() {
 
 			@Override
 			public Class<Float> getConvertedClass() {
@@ -226,7 +239,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Float read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Float read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getFloat(column);
 			}
 
@@ -237,7 +250,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Float.class, new SQLConverter<Float>() {
+		registerDefaultConverter(Float.class, new IndexReadingConverter<Float>() {
 
 			@Override
 			public Class<Float> getConvertedClass() {
@@ -245,7 +258,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Float read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Float read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				float obj = rs.getFloat(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -261,7 +274,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(double.class, new SQLConverter<Double>() {
+		registerDefaultConverter(double.class, new IndexReadingConverter<Double>() {
 
 			@Override
 			public Class<Double> getConvertedClass() {
@@ -269,7 +282,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Double read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Double read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getDouble(column);
 			}
 
@@ -280,7 +293,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Double.class, new SQLConverter<Double>() {
+		registerDefaultConverter(Double.class, new IndexReadingConverter<Double>() {
 
 			@Override
 			public Class<Double> getConvertedClass() {
@@ -288,7 +301,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Double read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Double read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				double obj = rs.getDouble(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -304,7 +317,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(boolean.class, new SQLConverter<Boolean>() {
+		registerDefaultConverter(boolean.class, new IndexReadingConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -312,7 +325,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getBoolean(column);
 			}
 
@@ -323,7 +336,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Boolean.class, new SQLConverter<Boolean>() {
+		registerDefaultConverter(Boolean.class, new IndexReadingConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -331,7 +344,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				boolean obj = rs.getBoolean(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -347,7 +360,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter("yes_no", new SQLConverter<Boolean>() {
+		registerDefaultConverter("yes_no", new IndexReadingConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -355,7 +368,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return targetType == Boolean.class ? null : false;
@@ -378,7 +391,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(char.class, new SQLConverter<Character>() {
+		registerDefaultConverter(char.class, new IndexReadingConverter<Character>() {
 
 			@Override
 			public Class<Character> getConvertedClass() {
@@ -386,7 +399,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Character read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Character read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return Character.MIN_VALUE;
@@ -406,7 +419,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Character.class, new SQLConverter<Character>() {
+		registerDefaultConverter(Character.class, new IndexReadingConverter<Character>() {
 
 			@Override
 			public Class<Character> getConvertedClass() {
@@ -414,7 +427,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Character read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Character read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return null;
@@ -439,7 +452,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(String.class, new SQLConverter<String>() {
+		registerDefaultConverter(String.class, new IndexReadingConverter<String>() {
 
 			@Override
 			public Class<String> getConvertedClass() {
@@ -447,7 +460,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public String read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public String read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return null;
@@ -467,7 +480,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(BigInteger.class, new SQLConverter<BigInteger>() {
+		registerDefaultConverter(BigInteger.class, new IndexReadingConverter<BigInteger>() {
 
 			@Override
 			public Class<BigInteger> getConvertedClass() {
@@ -475,7 +488,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public BigInteger read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public BigInteger read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				BigDecimal obj = rs.getBigDecimal(column);
 				return rs.wasNull() ? null : obj.toBigInteger();
 			}
@@ -491,7 +504,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(BigDecimal.class, new SQLConverter<BigDecimal>() {
+		registerDefaultConverter(BigDecimal.class, new IndexReadingConverter<BigDecimal>() {
 
 			@Override
 			public Class<BigDecimal> getConvertedClass() {
@@ -499,7 +512,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public BigDecimal read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public BigDecimal read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				BigDecimal obj = rs.getBigDecimal(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -515,7 +528,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalDate.class, new SQLConverter<LocalDate>() {
+		registerDefaultConverter(LocalDate.class, new IndexReadingConverter<LocalDate>() {
 
 			@Override
 			public Class<LocalDate> getConvertedClass() {
@@ -523,7 +536,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalDate read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalDate read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String strVal = rs.getString(column);
 				return rs.wasNull() ? null : LocalDate.parse(strVal);
 			}
@@ -539,7 +552,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalTime.class, new SQLConverter<LocalTime>() {
+		registerDefaultConverter(LocalTime.class, new IndexReadingConverter<LocalTime>() {
 
 			@Override
 			public Class<LocalTime> getConvertedClass() {
@@ -547,7 +560,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalTime read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalTime read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String strVal = rs.getString(column);
 				return rs.wasNull() ? null : LocalTime.parse(strVal);
 			}
@@ -563,7 +576,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalDateTime.class, new SQLConverter<LocalDateTime>() {
+		registerDefaultConverter(LocalDateTime.class, new IndexReadingConverter<LocalDateTime>() {
 
 			@Override
 			public Class<LocalDateTime> getConvertedClass() {
@@ -571,7 +584,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalDateTime read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalDateTime read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				Timestamp stamp = rs.getTimestamp(column);
 				return rs.wasNull() ? null : stamp.toLocalDateTime();
 			}
@@ -587,7 +600,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Enum.class, new SQLConverter<Enum>() {
+		registerDefaultConverter(Enum.class, new IndexReadingConverter<Enum>() {
 
 			@Override
 			public Class<Enum> getConvertedClass() {
@@ -595,7 +608,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Enum read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Enum read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				try {
 					String columnVal = rs.getString(column);
 					if (rs.wasNull()) {
@@ -620,7 +633,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Object.class, new SQLConverter<Object>() {
+		registerDefaultConverter(Object.class, new IndexReadingConverter<Object>() {
 
 			@Override
 			public Class<Object> getConvertedClass() {
@@ -628,7 +641,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Object read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Object read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getObject(column);
 			}
 
@@ -639,12 +652,47 @@ public class ConversionRegistry {
 
 		});
 
+		for (Class<?> type : Arrays.asList(Integer.class, Long.class, Double.class, Boolean.class)) {
+			PRIMITIVE_SETTER_CONVERTERS.add(DEFAULT_REGISTRY.lookup(type.getName()));
+		}
+
 	}
 
-	private Map<String, SQLConverter> registry;
+	/**
+	 * Base class for the default converters, which read natively by column index. Reads by column label resolve the
+	 * column index first
+	 */
+	private static abstract class IndexReadingConverter<T> extends SQLConverter<T> {
 
+		@Override
+		public abstract T read(ResultSet rs, int column, Class<?> targetType) throws SQLException;
+
+		@Override
+		public T read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			return read(rs, rs.findColumn(column), targetType);
+		}
+
+	}
+
+	/** Registry this one falls back to for any name not registered on it. Null only for the default registry */
+	private final ConversionRegistry parent;
+
+	/** Converters registered on this registry by name, in registration order. Replaced on write, never modified */
+	private volatile Map<String, SQLConverter<?>> converters = Collections.emptyMap();
+
+	/** Cached class type resolution, valid until a converter is registered here or on the parent registry */
+	private volatile Resolution resolution;
+
+	/**
+	 * Creates a registry layered over the default registry. Converters registered on it override the defaults for this
+	 * registry only; the defaults themselves are shared, not copied
+	 */
 	public ConversionRegistry() {
-		registry = new HashMap<>(DEFAULT_REGISTRY);
+		this(DEFAULT_REGISTRY);
+	}
+
+	private ConversionRegistry(ConversionRegistry parent) {
+		this.parent = parent;
 	}
 
 	public static <T> void registerDefaultConverter(Class<T> type, SQLConverter<T> converter) {
@@ -652,23 +700,56 @@ public class ConversionRegistry {
 	}
 
 	public static <T> void registerDefaultConverter(String name, SQLConverter<T> converter) {
-		DEFAULT_REGISTRY.put(name, converter);
+		DEFAULT_REGISTRY.registerConverter(name, converter);
 	}
 
+	/**
+	 * Returns a new registry layered over the default registry, the same as {@link #ConversionRegistry()}. Converters
+	 * registered on it only apply to it; use {@link #registerDefaultConverter} or {@link #getShared()} to change the defaults
+	 */
 	public static ConversionRegistry getDefault() {
 		return new ConversionRegistry();
 	}
 
+	/**
+	 * Returns the shared default registry, which every other registry falls back to and which queries use. Converters
+	 * registered on it are visible to every registry, the same as {@link #registerDefaultConverter(String, SQLConverter)}
+	 */
+	public static ConversionRegistry getShared() {
+		return DEFAULT_REGISTRY;
+	}
+
+	/**
+	 * Returns an object identifying the converters currently visible through this registry, including those of the default
+	 * registry it falls back to. A different object is returned once a converter is registered on either, so anything
+	 * resolved from this registry can be cached along with the snapshot it was resolved from, and resolved again once the
+	 * snapshot changes
+	 */
+	public Object getConverterSnapshot() {
+		return currentResolution();
+	}
+
+	/**
+	 * Whether the given converter is the built-in converter for Integer, Long, Double or Boolean, which writes non-null
+	 * values with setInt, setLong, setDouble or setBoolean. Values held unboxed can then be written with that setter
+	 * directly, to the same effect
+	 */
+	public static boolean writesWithPrimitiveSetter(SQLConverter<?> converter) {
+		return PRIMITIVE_SETTER_CONVERTERS.contains(converter);
+	}
+
 	public boolean containsConverterFor(Class<?> type) {
-		return registry.containsKey(type.getName());
+		return lookup(type.getName()) != null;
 	}
 
 	public <T> void registerConverter(Class<T> type, SQLConverter<T> converter) {
-		registry.put(type.getName(), converter);
+		registerConverter(type.getName(), converter);
 	}
 
-	public <T> void registerConverter(String name, SQLConverter<T> converter) {
-		registry.put(name, converter);
+	public synchronized <T> void registerConverter(String name, SQLConverter<T> converter) {
+		Map<String, SQLConverter<?>> updated = new LinkedHashMap<>(converters);
+		updated.put(name, converter);
+		converters = Collections.unmodifiableMap(updated);
 	}
 
 	public <T> SQLConverter<T> getConverter(Field field) {
@@ -681,21 +762,106 @@ public class ConversionRegistry {
 
 	@SuppressWarnings("unchecked")
 	public <T> SQLConverter<T> getConverter(String name) {
-		if (registry.containsKey(name)) {
-			return registry.get(name);
-		} else {
+		SQLConverter<T> converter = (SQLConverter<T>) lookup(name);
+		if (converter == null) {
 			throw new IllegalArgumentException("No converter is registered for name '" + name + "'");
 		}
+		return converter;
 	}
 
+	/**
+	 * Returns the converter registered for exactly the given type if there is one, otherwise the converter for its most
+	 * specific registered supertype. Resolution is done once per type and cached
+	 * @throws ConversionException If no registered converter can convert the given type
+	 */
+	@SuppressWarnings("unchecked")
 	public <T> SQLConverter<T> getConverter(Class<T> type) {
-		return (SQLConverter<T>) registry.computeIfAbsent(type.getName(), t -> {
-			return registry.values()
-			               .stream()
-			               .filter(converter -> converter.getConvertedClass().isAssignableFrom(type))
-			               .findFirst()
-			               .orElseThrow(() -> new ConversionException("No suitable converter found for " + type));
-		});
+		SQLConverter<T> converter = (SQLConverter<T>) currentResolution().get(type);
+		if (converter == null) {
+			throw new ConversionException("No suitable converter found for " + type);
+		}
+		return converter;
 	}
-	
+
+	private SQLConverter<?> lookup(String name) {
+		for (ConversionRegistry registry = this; registry != null; registry = registry.parent) {
+			SQLConverter<?> converter = registry.converters.get(name);
+			if (converter != null) {
+				return converter;
+			}
+		}
+		return null;
+	}
+
+	private Resolution currentResolution() {
+		Resolution current = resolution;
+		if (current == null || !current.isCurrentFor(this)) {
+			resolution = current = new Resolution(this);
+		}
+		return current;
+	}
+
+	/**
+	 * Resolves class types against a snapshot of the converters of a registry and each registry it falls back to,
+	 * caching the converter (or null, if none applies) per class
+	 */
+	private static final class Resolution extends ClassValue<SQLConverter<?>> {
+
+		/** Converter snapshots, starting with the registry this resolution was created for */
+		private final List<Map<String, SQLConverter<?>>> layers = new ArrayList<>();
+
+		Resolution(ConversionRegistry registry) {
+			for (; registry != null; registry = registry.parent) {
+				layers.add(registry.converters);
+			}
+		}
+
+		boolean isCurrentFor(ConversionRegistry registry) {
+			for (Map<String, SQLConverter<?>> layer : layers) {
+				if (registry == null || registry.converters != layer) {
+					return false;
+				}
+				registry = registry.parent;
+			}
+			return registry == null;
+		}
+
+		@Override
+		protected SQLConverter<?> computeValue(Class<?> type) {
+
+			String typeName = type.getName();
+			for (Map<String, SQLConverter<?>> layer : layers) {
+				SQLConverter<?> exact = layer.get(typeName);
+				if (exact != null) {
+					return exact;
+				}
+			}
+
+			// Earlier layers win ties, since a later one only replaces the match if it converts a strictly narrower type
+			SQLConverter<?> best = null;
+			for (int i = 0; i < layers.size(); i++) {
+				for (Map.Entry<String, SQLConverter<?>> entry : layers.get(i).entrySet()) {
+					Class<?> convertedClass = entry.getValue().getConvertedClass();
+					if (!convertedClass.isAssignableFrom(type) || isOverridden(entry.getKey(), i)) {
+						continue;
+					}
+					if (best == null || (best.getConvertedClass() != convertedClass && best.getConvertedClass().isAssignableFrom(convertedClass))) {
+						best = entry.getValue();
+					}
+				}
+			}
+			return best;
+		}
+
+		private boolean isOverridden(String name, int layer) {
+			for (int i = 0; i < layer; i++) {
+				if (layers.get(i).containsKey(name)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
 }
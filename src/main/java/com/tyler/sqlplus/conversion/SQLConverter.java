@@ -9,7 +9,9 @@ public abstract class SQLConverter<T> {
 	public abstract Class<T> getConvertedClass();
 
 	/**
-	 * Reads a value from a {@link ResultSet}
+	 * Reads a value from a {@link ResultSet} by 1-based column index. This is the path used when mapping rows, so
+	 * converters should override it to read by index directly; by default, the column label is looked up and the value
+	 * is read by label
 	 */
 	public T read(ResultSet rs, int colIndex, Class<?> targetType) throws SQLException {
 		String labelForIndex = rs.getMetaData().getColumnLabel(colIndex);
@@ -17,6 +19,9 @@ public abstract class SQLConverter<T> {
 	}
 
 
+	/**
+	 * Reads a value from a {@link ResultSet} by column label
+	 */
 	public abstract T read(ResultSet rs, String column, Class<?> targetType) throws SQLException;
 
 	/**
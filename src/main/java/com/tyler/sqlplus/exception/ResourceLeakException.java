@@ -0,0 +1,15 @@
+package com.tyler.sqlplus.exception;
+
+/**
+ * Reports a connection or result stream which was not released in time. Instances are not thrown, but passed to the leak
+ * listener of a {@link com.tyler.sqlplus.SQLPlus} instance, with the stack trace of where the resource was acquired
+ */
+public class ResourceLeakException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ResourceLeakException(String msg) {
+		super(msg);
+	}
+
+}
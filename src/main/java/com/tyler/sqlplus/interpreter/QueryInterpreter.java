@@ -6,6 +6,7 @@ import com.tyler.sqlplus.exception.QueryInterpretationException;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Defines the contract for a class which is able of interpreting a query as a given java type, reflectively.
@@ -20,16 +21,21 @@ public abstract class QueryInterpreter {
 		new UniqueResultQueryInterpreter()
 	);
 
-	private static final Map<Type, QueryInterpreter> INTERPRETER_INDEX = new HashMap<>();
+	/**
+	 * Interpreter resolved for each type. Keyed by {@link Type} rather than class, since parameterized types are interpreted
+	 * by their type arguments. Read without locking; a type resolved concurrently by several threads resolves the same way
+	 */
+	private static final Map<Type, QueryInterpreter> INTERPRETER_INDEX = new ConcurrentHashMap<>();
 	
 	public static QueryInterpreter forType(Type type) {
-		if (INTERPRETER_INDEX.containsKey(type)) {
-			return INTERPRETER_INDEX.get(type);
+		QueryInterpreter interpreter = INTERPRETER_INDEX.get(type);
+		if (interpreter != null) {
+			return interpreter;
 		}
 
 		Optional<QueryInterpreter> foundInterpreter = REGISTERED_INTERPRETERS.stream().filter(i -> i.canInterpret(type)).findFirst();
 		if (foundInterpreter.isPresent()) {
-			INTERPRETER_INDEX.put(type, foundInterpreter.get());
+			INTERPRETER_INDEX.putIfAbsent(type, foundInterpreter.get());
 			return foundInterpreter.get();
 		}
 		throw new QueryInterpretationException("No valid query interpreters found for " + type + ". Make sure generic type info is present");
@@ -0,0 +1,145 @@
+package com.tyler.sqlplus.keyprovider;
+
+import com.tyler.sqlplus.Session;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * Key provider which reserves blocks of keys at a time using the hi/lo algorithm, so that only one round trip to the
+ * database is made per block rather than per key.
+ * <br/><br/>
+ * Each block is identified by a 'hi' value, typically the next value of a database sequence. A block holds the keys from
+ * hi * blockSize to hi * blockSize + blockSize - 1, so blocks reserved by different providers, processes or machines
+ * sharing the same sequence never overlap. Keys are handed out from the current block without locking; when a block is
+ * exhausted, the next one is reserved by the thread which needs it. Keys left unused in a block, for instance when the
+ * application restarts, are skipped.
+ * <br/><br/>
+ * To use hi/lo keys with @{@link com.tyler.sqlplus.annotation.SQLUpdate}, extend this class with a no-argument
+ * constructor:
+ * <pre>
+ * public class WidgetKeyProvider extends HiLoKeyProvider&lt;Long&gt; {
+ *     public WidgetKeyProvider() {
+ *         super("select next value for widget_hi", 1000, Long.class);
+ *     }
+ * }
+ * </pre>
+ * When hi values come from a table rather than a sequence, the {@link HiSource} should reserve them in a transaction of
+ * its own, since a rolled back reservation would let the same block be handed out twice
+ */
+public class HiLoKeyProvider<T extends Number> implements KeyProvider<T> {
+
+	/**
+	 * Reserves the next hi value. Every call must return a value that has never been returned before
+	 */
+	@FunctionalInterface
+	public interface HiSource {
+
+		long nextHi(Session session) throws SQLException;
+
+	}
+
+	/**
+	 * A reserved block of keys. Keys are claimed by advancing 'next', which may overshoot 'end' once the block runs out
+	 */
+	private static final class Block {
+
+		final AtomicLong next;
+		final long end;
+
+		Block(long start, long end) {
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+
+	}
+
+	private final HiSource hiSource;
+	private final int blockSize;
+	private final LongFunction<T> keyConverter;
+
+	/** The block keys are currently handed out from. Initially an empty block, so that the first key reserves one */
+	private final AtomicReference<Block> currentBlock = new AtomicReference<>(new Block(0, 0));
+
+	/**
+	 * Creates a provider which reserves blocks using the given SQL, which must return the next hi value from a sequence
+	 */
+	public HiLoKeyProvider(String hiQuerySQL, int blockSize, Class<T> keyClass) {
+		this(session -> session.createQuery(hiQuerySQL).getUniqueResultAs(Long.class), blockSize, keyClass);
+	}
+
+	public HiLoKeyProvider(HiSource hiSource, int blockSize, Class<T> keyClass) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be at least 1");
+		}
+		this.hiSource = hiSource;
+		this.blockSize = blockSize;
+		this.keyConverter = keyConverterFor(keyClass);
+	}
+
+	@Override
+	public T getKey(Session session) throws SQLException {
+		while (true) {
+			Block block = currentBlock.get();
+			long key = block.next.getAndIncrement();
+			if (key < block.end) {
+				return keyConverter.apply(key);
+			}
+			reserveBlock(session, block);
+		}
+	}
+
+	@Override
+	public List<T> getKeys(Session session, int count) throws SQLException {
+		List<T> keys = new ArrayList<>(count);
+		while (keys.size() < count) {
+			Block block = currentBlock.get();
+			int wanted = count - keys.size();
+			long first = block.next.getAndAdd(wanted);
+			long end = Math.min(first + wanted, block.end);
+			for (long key = first; key < end; key++) {
+				keys.add(keyConverter.apply(key));
+			}
+			if (keys.size() < count) {
+				reserveBlock(session, block);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Replaces the given exhausted block with a newly reserved one. If another thread has already replaced it, the newly
+	 * reserved block is discarded
+	 */
+	private void reserveBlock(Session session, Block exhausted) throws SQLException {
+		if (currentBlock.get() != exhausted) {
+			return;
+		}
+		long start = Math.multiplyExact(hiSource.nextHi(session), (long) blockSize);
+		currentBlock.compareAndSet(exhausted, new Block(start, start + blockSize));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Number> LongFunction<T> keyConverterFor(Class<T> keyClass) {
+		if (keyClass == Long.class) {
+			return key -> (T) Long.valueOf(key);
+		}
+		if (keyClass == Integer.class) {
+			return key -> (T) Integer.valueOf(Math.toIntExact(key));
+		}
+		if (keyClass == BigInteger.class) {
+			return key -> (T) BigInteger.valueOf(key);
+		}
+		if (keyClass == BigDecimal.class) {
+			return key -> (T) BigDecimal.valueOf(key);
+		}
+		throw new IllegalArgumentException("Unsupported key class " + keyClass + ", must be Long, Integer, BigInteger or BigDecimal");
+	}
+
+}
@@ -3,9 +3,15 @@ package com.tyler.sqlplus.keyprovider;
 import com.tyler.sqlplus.Session;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Provides primary key values for new database entities
+ * Provides primary key values for new database entities.
+ * <br/><br/>
+ * Key providers given to @{@link com.tyler.sqlplus.annotation.SQLUpdate} are instantiated once per class for each service
+ * created by {@link com.tyler.sqlplus.SQLPlus#createService}, and shared by all invocations of that service, from any
+ * thread, so implementations must be thread-safe
  */
 @FunctionalInterface
 public interface KeyProvider<T> {
@@ -24,4 +30,16 @@ public interface KeyProvider<T> {
 
 	T getKey(Session session) throws SQLException;
 
+	/**
+	 * Provides the given number of keys at once, for binding a batch of new entities. Implementations which can reserve
+	 * several keys in one round trip should override this; by default, {@link #getKey} is called once per key
+	 */
+	default List<T> getKeys(Session session, int count) throws SQLException {
+		List<T> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			keys.add(getKey(session));
+		}
+		return keys;
+	}
+
 }
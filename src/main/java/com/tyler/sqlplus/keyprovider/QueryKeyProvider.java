@@ -5,7 +5,8 @@ import com.tyler.sqlplus.Session;
 import java.sql.SQLException;
 
 /**
- * Key provider which provides keys from a simple SQL query
+ * Key provider which provides keys from a simple SQL query, executing it once per key, including for batches. See
+ * {@link HiLoKeyProvider} for reserving keys in blocks
  */
 public class QueryKeyProvider<T> implements KeyProvider<T> {
 
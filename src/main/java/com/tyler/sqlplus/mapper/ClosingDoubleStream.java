@@ -0,0 +1,222 @@
+package com.tyler.sqlplus.mapper;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A {@link DoubleStream} which closes itself once a terminal operation returns, as {@link ClosingStream} does for object streams
+ */
+final class ClosingDoubleStream implements DoubleStream {
+
+	private final DoubleStream delegate;
+
+	ClosingDoubleStream(DoubleStream delegate) {
+		this.delegate = delegate;
+	}
+
+	private static DoubleStream wrap(DoubleStream stream) {
+		return new ClosingDoubleStream(stream);
+	}
+
+	/**
+	 * Runs a terminal operation on the delegate, closing it once the operation returns or fails
+	 */
+	private <R> R terminal(Function<DoubleStream, R> operation) {
+		try (DoubleStream stream = delegate) {
+			return operation.apply(stream);
+		}
+	}
+
+	@Override
+	public DoubleStream filter(DoublePredicate predicate) {
+		return wrap(delegate.filter(predicate));
+	}
+
+	@Override
+	public DoubleStream map(DoubleUnaryOperator mapper) {
+		return wrap(delegate.map(mapper));
+	}
+
+	@Override
+	public <U> Stream<U> mapToObj(DoubleFunction<? extends U> mapper) {
+		return new ClosingStream<>(delegate.mapToObj(mapper));
+	}
+
+	@Override
+	public IntStream mapToInt(DoubleToIntFunction mapper) {
+		return new ClosingIntStream(delegate.mapToInt(mapper));
+	}
+
+	@Override
+	public LongStream mapToLong(DoubleToLongFunction mapper) {
+		return new ClosingLongStream(delegate.mapToLong(mapper));
+	}
+
+	@Override
+	public DoubleStream flatMap(DoubleFunction<? extends DoubleStream> mapper) {
+		return wrap(delegate.flatMap(mapper));
+	}
+
+	@Override
+	public DoubleStream distinct() {
+		return wrap(delegate.distinct());
+	}
+
+	@Override
+	public DoubleStream sorted() {
+		return wrap(delegate.sorted());
+	}
+
+	@Override
+	public DoubleStream peek(DoubleConsumer action) {
+		return wrap(delegate.peek(action));
+	}
+
+	@Override
+	public DoubleStream limit(long maxSize) {
+		return wrap(delegate.limit(maxSize));
+	}
+
+	@Override
+	public DoubleStream skip(long n) {
+		return wrap(delegate.skip(n));
+	}
+
+	@Override
+	public void forEach(DoubleConsumer action) {
+		terminal(stream -> {
+			stream.forEach(action);
+			return null;
+		});
+	}
+
+	@Override
+	public void forEachOrdered(DoubleConsumer action) {
+		terminal(stream -> {
+			stream.forEachOrdered(action);
+			return null;
+		});
+	}
+
+	@Override
+	public double[] toArray() {
+		return terminal(DoubleStream::toArray);
+	}
+
+	@Override
+	public double reduce(double identity, DoubleBinaryOperator op) {
+		return terminal(stream -> stream.reduce(identity, op));
+	}
+
+	@Override
+	public OptionalDouble reduce(DoubleBinaryOperator op) {
+		return terminal(stream -> stream.reduce(op));
+	}
+
+	@Override
+	public <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+		return terminal(stream -> stream.collect(supplier, accumulator, combiner));
+	}
+
+	@Override
+	public double sum() {
+		return terminal(DoubleStream::sum);
+	}
+
+	@Override
+	public OptionalDouble min() {
+		return terminal(DoubleStream::min);
+	}
+
+	@Override
+	public OptionalDouble max() {
+		return terminal(DoubleStream::max);
+	}
+
+	@Override
+	public long count() {
+		return terminal(DoubleStream::count);
+	}
+
+	@Override
+	public OptionalDouble average() {
+		return terminal(DoubleStream::average);
+	}
+
+	@Override
+	public DoubleSummaryStatistics summaryStatistics() {
+		return terminal(DoubleStream::summaryStatistics);
+	}
+
+	@Override
+	public boolean anyMatch(DoublePredicate predicate) {
+		return terminal(stream -> stream.anyMatch(predicate));
+	}
+
+	@Override
+	public boolean allMatch(DoublePredicate predicate) {
+		return terminal(stream -> stream.allMatch(predicate));
+	}
+
+	@Override
+	public boolean noneMatch(DoublePredicate predicate) {
+		return terminal(stream -> stream.noneMatch(predicate));
+	}
+
+	@Override
+	public OptionalDouble findFirst() {
+		return terminal(DoubleStream::findFirst);
+	}
+
+	@Override
+	public OptionalDouble findAny() {
+		return terminal(DoubleStream::findAny);
+	}
+
+	@Override
+	public Stream<Double> boxed() {
+		return new ClosingStream<>(delegate.boxed());
+	}
+
+	@Override
+	public DoubleStream sequential() {
+		return wrap(delegate.sequential());
+	}
+
+	@Override
+	public DoubleStream parallel() {
+		return wrap(delegate.parallel());
+	}
+
+	@Override
+	public PrimitiveIterator.OfDouble iterator() {
+		return delegate.iterator();
+	}
+
+	@Override
+	public Spliterator.OfDouble spliterator() {
+		return delegate.spliterator();
+	}
+
+	@Override
+	public boolean isParallel() {
+		return delegate.isParallel();
+	}
+
+	@Override
+	public DoubleStream unordered() {
+		return wrap(delegate.unordered());
+	}
+
+	@Override
+	public DoubleStream onClose(Runnable closeHandler) {
+		return wrap(delegate.onClose(closeHandler));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+}
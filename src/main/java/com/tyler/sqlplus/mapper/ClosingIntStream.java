@@ -0,0 +1,232 @@
+package com.tyler.sqlplus.mapper;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * An {@link IntStream} which closes itself once a terminal operation returns, as {@link ClosingStream} does for object streams
+ */
+final class ClosingIntStream implements IntStream {
+
+	private final IntStream delegate;
+
+	ClosingIntStream(IntStream delegate) {
+		this.delegate = delegate;
+	}
+
+	private static IntStream wrap(IntStream stream) {
+		return new ClosingIntStream(stream);
+	}
+
+	/**
+	 * Runs a terminal operation on the delegate, closing it once the operation returns or fails
+	 */
+	private <R> R terminal(Function<IntStream, R> operation) {
+		try (IntStream stream = delegate) {
+			return operation.apply(stream);
+		}
+	}
+
+	@Override
+	public IntStream filter(IntPredicate predicate) {
+		return wrap(delegate.filter(predicate));
+	}
+
+	@Override
+	public IntStream map(IntUnaryOperator mapper) {
+		return wrap(delegate.map(mapper));
+	}
+
+	@Override
+	public <U> Stream<U> mapToObj(IntFunction<? extends U> mapper) {
+		return new ClosingStream<>(delegate.mapToObj(mapper));
+	}
+
+	@Override
+	public LongStream mapToLong(IntToLongFunction mapper) {
+		return new ClosingLongStream(delegate.mapToLong(mapper));
+	}
+
+	@Override
+	public DoubleStream mapToDouble(IntToDoubleFunction mapper) {
+		return new ClosingDoubleStream(delegate.mapToDouble(mapper));
+	}
+
+	@Override
+	public IntStream flatMap(IntFunction<? extends IntStream> mapper) {
+		return wrap(delegate.flatMap(mapper));
+	}
+
+	@Override
+	public IntStream distinct() {
+		return wrap(delegate.distinct());
+	}
+
+	@Override
+	public IntStream sorted() {
+		return wrap(delegate.sorted());
+	}
+
+	@Override
+	public IntStream peek(IntConsumer action) {
+		return wrap(delegate.peek(action));
+	}
+
+	@Override
+	public IntStream limit(long maxSize) {
+		return wrap(delegate.limit(maxSize));
+	}
+
+	@Override
+	public IntStream skip(long n) {
+		return wrap(delegate.skip(n));
+	}
+
+	@Override
+	public void forEach(IntConsumer action) {
+		terminal(stream -> {
+			stream.forEach(action);
+			return null;
+		});
+	}
+
+	@Override
+	public void forEachOrdered(IntConsumer action) {
+		terminal(stream -> {
+			stream.forEachOrdered(action);
+			return null;
+		});
+	}
+
+	@Override
+	public int[] toArray() {
+		return terminal(IntStream::toArray);
+	}
+
+	@Override
+	public int reduce(int identity, IntBinaryOperator op) {
+		return terminal(stream -> stream.reduce(identity, op));
+	}
+
+	@Override
+	public OptionalInt reduce(IntBinaryOperator op) {
+		return terminal(stream -> stream.reduce(op));
+	}
+
+	@Override
+	public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+		return terminal(stream -> stream.collect(supplier, accumulator, combiner));
+	}
+
+	@Override
+	public int sum() {
+		return terminal(IntStream::sum);
+	}
+
+	@Override
+	public OptionalInt min() {
+		return terminal(IntStream::min);
+	}
+
+	@Override
+	public OptionalInt max() {
+		return terminal(IntStream::max);
+	}
+
+	@Override
+	public long count() {
+		return terminal(IntStream::count);
+	}
+
+	@Override
+	public OptionalDouble average() {
+		return terminal(IntStream::average);
+	}
+
+	@Override
+	public IntSummaryStatistics summaryStatistics() {
+		return terminal(IntStream::summaryStatistics);
+	}
+
+	@Override
+	public boolean anyMatch(IntPredicate predicate) {
+		return terminal(stream -> stream.anyMatch(predicate));
+	}
+
+	@Override
+	public boolean allMatch(IntPredicate predicate) {
+		return terminal(stream -> stream.allMatch(predicate));
+	}
+
+	@Override
+	public boolean noneMatch(IntPredicate predicate) {
+		return terminal(stream -> stream.noneMatch(predicate));
+	}
+
+	@Override
+	public OptionalInt findFirst() {
+		return terminal(IntStream::findFirst);
+	}
+
+	@Override
+	public OptionalInt findAny() {
+		return terminal(IntStream::findAny);
+	}
+
+	@Override
+	public LongStream asLongStream() {
+		return new ClosingLongStream(delegate.asLongStream());
+	}
+
+	@Override
+	public DoubleStream asDoubleStream() {
+		return new ClosingDoubleStream(delegate.asDoubleStream());
+	}
+
+	@Override
+	public Stream<Integer> boxed() {
+		return new ClosingStream<>(delegate.boxed());
+	}
+
+	@Override
+	public IntStream sequential() {
+		return wrap(delegate.sequential());
+	}
+
+	@Override
+	public IntStream parallel() {
+		return wrap(delegate.parallel());
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return delegate.iterator();
+	}
+
+	@Override
+	public Spliterator.OfInt spliterator() {
+		return delegate.spliterator();
+	}
+
+	@Override
+	public boolean isParallel() {
+		return delegate.isParallel();
+	}
+
+	@Override
+	public IntStream unordered() {
+		return wrap(delegate.unordered());
+	}
+
+	@Override
+	public IntStream onClose(Runnable closeHandler) {
+		return wrap(delegate.onClose(closeHandler));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+}
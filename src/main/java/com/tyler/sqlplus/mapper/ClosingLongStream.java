@@ -0,0 +1,227 @@
+package com.tyler.sqlplus.mapper;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A {@link LongStream} which closes itself once a terminal operation returns, as {@link ClosingStream} does for object streams
+ */
+final class ClosingLongStream implements LongStream {
+
+	private final LongStream delegate;
+
+	ClosingLongStream(LongStream delegate) {
+		this.delegate = delegate;
+	}
+
+	private static LongStream wrap(LongStream stream) {
+		return new ClosingLongStream(stream);
+	}
+
+	/**
+	 * Runs a terminal operation on the delegate, closing it once the operation returns or fails
+	 */
+	private <R> R terminal(Function<LongStream, R> operation) {
+		try (LongStream stream = delegate) {
+			return operation.apply(stream);
+		}
+	}
+
+	@Override
+	public LongStream filter(LongPredicate predicate) {
+		return wrap(delegate.filter(predicate));
+	}
+
+	@Override
+	public LongStream map(LongUnaryOperator mapper) {
+		return wrap(delegate.map(mapper));
+	}
+
+	@Override
+	public <U> Stream<U> mapToObj(LongFunction<? extends U> mapper) {
+		return new ClosingStream<>(delegate.mapToObj(mapper));
+	}
+
+	@Override
+	public IntStream mapToInt(LongToIntFunction mapper) {
+		return new ClosingIntStream(delegate.mapToInt(mapper));
+	}
+
+	@Override
+	public DoubleStream mapToDouble(LongToDoubleFunction mapper) {
+		return new ClosingDoubleStream(delegate.mapToDouble(mapper));
+	}
+
+	@Override
+	public LongStream flatMap(LongFunction<? extends LongStream> mapper) {
+		return wrap(delegate.flatMap(mapper));
+	}
+
+	@Override
+	public LongStream distinct() {
+		return wrap(delegate.distinct());
+	}
+
+	@Override
+	public LongStream sorted() {
+		return wrap(delegate.sorted());
+	}
+
+	@Override
+	public LongStream peek(LongConsumer action) {
+		return wrap(delegate.peek(action));
+	}
+
+	@Override
+	public LongStream limit(long maxSize) {
+		return wrap(delegate.limit(maxSize));
+	}
+
+	@Override
+	public LongStream skip(long n) {
+		return wrap(delegate.skip(n));
+	}
+
+	@Override
+	public void forEach(LongConsumer action) {
+		terminal(stream -> {
+			stream.forEach(action);
+			return null;
+		});
+	}
+
+	@Override
+	public void forEachOrdered(LongConsumer action) {
+		terminal(stream -> {
+			stream.forEachOrdered(action);
+			return null;
+		});
+	}
+
+	@Override
+	public long[] toArray() {
+		return terminal(LongStream::toArray);
+	}
+
+	@Override
+	public long reduce(long identity, LongBinaryOperator op) {
+		return terminal(stream -> stream.reduce(identity, op));
+	}
+
+	@Override
+	public OptionalLong reduce(LongBinaryOperator op) {
+		return terminal(stream -> stream.reduce(op));
+	}
+
+	@Override
+	public <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+		return terminal(stream -> stream.collect(supplier, accumulator, combiner));
+	}
+
+	@Override
+	public long sum() {
+		return terminal(LongStream::sum);
+	}
+
+	@Override
+	public OptionalLong min() {
+		return terminal(LongStream::min);
+	}
+
+	@Override
+	public OptionalLong max() {
+		return terminal(LongStream::max);
+	}
+
+	@Override
+	public long count() {
+		return terminal(LongStream::count);
+	}
+
+	@Override
+	public OptionalDouble average() {
+		return terminal(LongStream::average);
+	}
+
+	@Override
+	public LongSummaryStatistics summaryStatistics() {
+		return terminal(LongStream::summaryStatistics);
+	}
+
+	@Override
+	public boolean anyMatch(LongPredicate predicate) {
+		return terminal(stream -> stream.anyMatch(predicate));
+	}
+
+	@Override
+	public boolean allMatch(LongPredicate predicate) {
+		return terminal(stream -> stream.allMatch(predicate));
+	}
+
+	@Override
+	public boolean noneMatch(LongPredicate predicate) {
+		return terminal(stream -> stream.noneMatch(predicate));
+	}
+
+	@Override
+	public OptionalLong findFirst() {
+		return terminal(LongStream::findFirst);
+	}
+
+	@Override
+	public OptionalLong findAny() {
+		return terminal(LongStream::findAny);
+	}
+
+	@Override
+	public DoubleStream asDoubleStream() {
+		return new ClosingDoubleStream(delegate.asDoubleStream());
+	}
+
+	@Override
+	public Stream<Long> boxed() {
+		return new ClosingStream<>(delegate.boxed());
+	}
+
+	@Override
+	public LongStream sequential() {
+		return wrap(delegate.sequential());
+	}
+
+	@Override
+	public LongStream parallel() {
+		return wrap(delegate.parallel());
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return delegate.iterator();
+	}
+
+	@Override
+	public Spliterator.OfLong spliterator() {
+		return delegate.spliterator();
+	}
+
+	@Override
+	public boolean isParallel() {
+		return delegate.isParallel();
+	}
+
+	@Override
+	public LongStream unordered() {
+		return wrap(delegate.unordered());
+	}
+
+	@Override
+	public LongStream onClose(Runnable closeHandler) {
+		return wrap(delegate.onClose(closeHandler));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+}
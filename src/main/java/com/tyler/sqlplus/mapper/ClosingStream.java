@@ -0,0 +1,246 @@
+package com.tyler.sqlplus.mapper;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A stream which closes itself once a terminal operation returns, so that the resources behind it are released even by
+ * short-circuiting operations such as {@link #findFirst()} or {@link #anyMatch}, or by operations which stop early after
+ * {@link #limit}, none of which exhaust the source.
+ * <br/><br/>
+ * Intermediate operations, including those to primitive streams, return streams which close the whole pipeline in the
+ * same way. The exceptions are {@link #iterator()} and {@link #spliterator()}, which hand iteration over to the caller, so
+ * the pipeline is only closed when exhausted or closed explicitly
+ */
+final class ClosingStream<T> implements Stream<T> {
+
+	private final Stream<T> delegate;
+
+	ClosingStream(Stream<T> delegate) {
+		this.delegate = delegate;
+	}
+
+	private static <R> Stream<R> wrap(Stream<R> stream) {
+		return new ClosingStream<>(stream);
+	}
+
+	/**
+	 * Runs a terminal operation on the delegate, closing it once the operation returns or fails
+	 */
+	private <R> R terminal(Function<Stream<T>, R> operation) {
+		try (Stream<T> stream = delegate) {
+			return operation.apply(stream);
+		}
+	}
+
+	@Override
+	public Stream<T> filter(Predicate<? super T> predicate) {
+		return wrap(delegate.filter(predicate));
+	}
+
+	@Override
+	public <R> Stream<R> map(Function<? super T, ? extends R> mapper) {
+		return wrap(delegate.map(mapper));
+	}
+
+	@Override
+	public IntStream mapToInt(ToIntFunction<? super T> mapper) {
+		return new ClosingIntStream(delegate.mapToInt(mapper));
+	}
+
+	@Override
+	public LongStream mapToLong(ToLongFunction<? super T> mapper) {
+		return new ClosingLongStream(delegate.mapToLong(mapper));
+	}
+
+	@Override
+	public DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
+		return new ClosingDoubleStream(delegate.mapToDouble(mapper));
+	}
+
+	@Override
+	public <R> Stream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper) {
+		return wrap(delegate.flatMap(mapper));
+	}
+
+	@Override
+	public IntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper) {
+		return new ClosingIntStream(delegate.flatMapToInt(mapper));
+	}
+
+	@Override
+	public LongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper) {
+		return new ClosingLongStream(delegate.flatMapToLong(mapper));
+	}
+
+	@Override
+	public DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper) {
+		return new ClosingDoubleStream(delegate.flatMapToDouble(mapper));
+	}
+
+	@Override
+	public Stream<T> distinct() {
+		return wrap(delegate.distinct());
+	}
+
+	@Override
+	public Stream<T> sorted() {
+		return wrap(delegate.sorted());
+	}
+
+	@Override
+	public Stream<T> sorted(Comparator<? super T> comparator) {
+		return wrap(delegate.sorted(comparator));
+	}
+
+	@Override
+	public Stream<T> peek(Consumer<? super T> action) {
+		return wrap(delegate.peek(action));
+	}
+
+	@Override
+	public Stream<T> limit(long maxSize) {
+		return wrap(delegate.limit(maxSize));
+	}
+
+	@Override
+	public Stream<T> skip(long n) {
+		return wrap(delegate.skip(n));
+	}
+
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		terminal(stream -> {
+			stream.forEach(action);
+			return null;
+		});
+	}
+
+	@Override
+	public void forEachOrdered(Consumer<? super T> action) {
+		terminal(stream -> {
+			stream.forEachOrdered(action);
+			return null;
+		});
+	}
+
+	@Override
+	public Object[] toArray() {
+		return terminal(Stream::toArray);
+	}
+
+	@Override
+	public <A> A[] toArray(IntFunction<A[]> generator) {
+		return terminal(stream -> stream.toArray(generator));
+	}
+
+	@Override
+	public T reduce(T identity, BinaryOperator<T> accumulator) {
+		return terminal(stream -> stream.reduce(identity, accumulator));
+	}
+
+	@Override
+	public Optional<T> reduce(BinaryOperator<T> accumulator) {
+		return terminal(stream -> stream.reduce(accumulator));
+	}
+
+	@Override
+	public <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
+		return terminal(stream -> stream.reduce(identity, accumulator, combiner));
+	}
+
+	@Override
+	public <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
+		return terminal(stream -> stream.collect(supplier, accumulator, combiner));
+	}
+
+	@Override
+	public <R, A> R collect(Collector<? super T, A, R> collector) {
+		return terminal(stream -> stream.collect(collector));
+	}
+
+	@Override
+	public Optional<T> min(Comparator<? super T> comparator) {
+		return terminal(stream -> stream.min(comparator));
+	}
+
+	@Override
+	public Optional<T> max(Comparator<? super T> comparator) {
+		return terminal(stream -> stream.max(comparator));
+	}
+
+	@Override
+	public long count() {
+		return terminal(Stream::count);
+	}
+
+	@Override
+	public boolean anyMatch(Predicate<? super T> predicate) {
+		return terminal(stream -> stream.anyMatch(predicate));
+	}
+
+	@Override
+	public boolean allMatch(Predicate<? super T> predicate) {
+		return terminal(stream -> stream.allMatch(predicate));
+	}
+
+	@Override
+	public boolean noneMatch(Predicate<? super T> predicate) {
+		return terminal(stream -> stream.noneMatch(predicate));
+	}
+
+	@Override
+	public Optional<T> findFirst() {
+		return terminal(Stream::findFirst);
+	}
+
+	@Override
+	public Optional<T> findAny() {
+		return terminal(Stream::findAny);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return delegate.iterator();
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return delegate.spliterator();
+	}
+
+	@Override
+	public boolean isParallel() {
+		return delegate.isParallel();
+	}
+
+	@Override
+	public Stream<T> sequential() {
+		return wrap(delegate.sequential());
+	}
+
+	@Override
+	public Stream<T> parallel() {
+		return wrap(delegate.parallel());
+	}
+
+	@Override
+	public Stream<T> unordered() {
+		return wrap(delegate.unordered());
+	}
+
+	@Override
+	public Stream<T> onClose(Runnable closeHandler) {
+		return wrap(delegate.onClose(closeHandler));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+}
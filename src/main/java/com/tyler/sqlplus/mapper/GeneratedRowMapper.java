@@ -0,0 +1,38 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.Session;
+import com.tyler.sqlplus.conversion.SQLConverter;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Base class for row mappers whose bytecode is generated at runtime by {@link RowMapperGenerator}. Each generated subclass
+ * is specialized for a single entity type and result set column layout. This class is only public so that generated
+ * subclasses, which are defined in the package of the entity they map, are able to extend it
+ */
+public abstract class GeneratedRowMapper<E> implements RowMapper<E> {
+
+	/** The entity type being mapped */
+	protected Class<E> type;
+
+	/** The session to bind lazy-loading proxies to */
+	protected Session session;
+
+	/** Converter to read with for each mapped column, in mapping order */
+	protected SQLConverter[] converters;
+
+	/** Target type to pass to each converter, in mapping order */
+	protected Class[] targetTypes;
+
+	/** Setter for each mapped field, in mapping order. Only used for fields which cannot be assigned directly by generated code */
+	protected BiConsumer[] setters;
+
+	void init(Class<E> type, Session session, SQLConverter[] converters, Class[] targetTypes, BiConsumer[] setters) {
+		this.type = type;
+		this.session = session;
+		this.converters = converters;
+		this.targetTypes = targetTypes;
+		this.setters = setters;
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.utility.Fields;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes how rows of a particular result set column layout map onto fields of a POJO type: which fields are mapped,
+ * which column each one is read from, and the generated mapper class for the layout, if any.
+ * <br/><br/>
+ * Plans are immutable apart from their lazily generated mapper class, and are cached process-wide per type and column
+ * layout, so the cost of resolving fields is only paid the first time a given query shape is mapped
+ */
+final class MappingPlan {
+
+	/**
+	 * Upper bound on the number of column layouts cached per POJO type. Each cached layout may define a generated mapper
+	 * class, so queries with varying aliases or extra columns could otherwise grow metaspace without limit; past the bound,
+	 * plans are still created but not cached, and map rows reflectively
+	 */
+	static final int MAX_LAYOUTS_PER_TYPE = 32;
+
+	/** Cached plans by POJO type, then by column layout key */
+	private static final ClassValue<Map<String, MappingPlan>> PLANS = new ClassValue<Map<String, MappingPlan>>() {
+		@Override
+		protected Map<String, MappingPlan> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/** Declared fields of each POJO type indexed by field name, so column labels can be resolved without exceptions */
+	private static final ClassValue<Map<String, Field>> DECLARED_FIELDS_BY_NAME = new ClassValue<Map<String, Field>>() {
+		@Override
+		protected Map<String, Field> computeValue(Class<?> type) {
+			return indexDeclaredFields(type);
+		}
+	};
+
+	final Class<?> type;
+
+	/** Mapped fields, ordered by the column they are read from */
+	final Field[] fields;
+
+	/** The 1-based column index each field is read from */
+	final int[] columns;
+
+	/** The column label each field is read from */
+	final String[] labels;
+
+	/** Generated mapper class for this plan, or empty if none could be generated. Null until first requested */
+	private volatile Optional<Class<?>> generatedMapperClass;
+
+	private MappingPlan(Class<?> type, Field[] fields, int[] columns, String[] labels, boolean generateMapper) {
+		this.type = type;
+		this.fields = fields;
+		this.columns = columns;
+		this.labels = labels;
+		if (!generateMapper) {
+			this.generatedMapperClass = Optional.empty();
+		}
+	}
+
+	/**
+	 * Returns the plan for mapping rows with the column layout described by the given metadata to the given type
+	 */
+	static MappingPlan forLayout(Class<?> type, ResultSetMetaData meta) throws SQLException {
+
+		int columnCount = meta.getColumnCount();
+		String[] columnLabels = new String[columnCount];
+		StringBuilder layoutKey = new StringBuilder();
+		for (int col = 1; col <= columnCount; col++) {
+			columnLabels[col - 1] = meta.getColumnLabel(col);
+			layoutKey.append(columnLabels[col - 1]).append('\0');
+		}
+
+		Map<String, MappingPlan> plansByLayout = PLANS.get(type);
+		MappingPlan plan = plansByLayout.get(layoutKey.toString());
+		if (plan != null) {
+			return plan;
+		}
+		if (plansByLayout.size() >= MAX_LAYOUTS_PER_TYPE) {
+			return create(type, columnLabels, false);
+		}
+		return plansByLayout.computeIfAbsent(layoutKey.toString(), key -> create(type, columnLabels, true));
+	}
+
+	/**
+	 * Resolves the field of the given type which should be mapped from the column with the given label, or null if there
+	 * is none. A field is mapped from a column if either of the following conditions are true:
+	 * <br/>
+	 * 1) The column label is the same as the field name
+	 * <br/>
+	 * 2) The column label is the underscore equivalent of the camel-case field name. For instance, 'MY_FIELD' would map
+	 * to the field 'myField'
+	 */
+	static Field fieldForColumn(Class<?> type, String columnLabel) {
+		Map<String, Field> fieldsByName = DECLARED_FIELDS_BY_NAME.get(type);
+		Field field = fieldsByName.get(columnLabel);
+		if (field == null) {
+			field = fieldsByName.get(Fields.underscoreToCamelCase(columnLabel));
+		}
+		return field;
+	}
+
+	/**
+	 * Returns the generated mapper class for this plan, generating it on first use. Only generation is done under lock
+	 */
+	Optional<Class<?>> getGeneratedMapperClass() {
+		Optional<Class<?>> mapperClass = generatedMapperClass;
+		if (mapperClass == null) {
+			synchronized (this) {
+				mapperClass = generatedMapperClass;
+				if (mapperClass == null) {
+					generatedMapperClass = mapperClass = RowMapperGenerator.generate(type, fields, columns);
+				}
+			}
+		}
+		return mapperClass;
+	}
+
+	private static MappingPlan create(Class<?> type, String[] columnLabels, boolean generateMapper) {
+
+		Map<Field, Integer> fieldColumns = new LinkedHashMap<>();
+		for (int col = 1; col <= columnLabels.length; col++) {
+			Field field = fieldForColumn(type, columnLabels[col - 1]);
+			if (field != null) {
+				fieldColumns.put(field, col);
+			}
+		}
+
+		Field[] fields = new Field[fieldColumns.size()];
+		int[] columns = new int[fieldColumns.size()];
+		String[] labels = new String[fieldColumns.size()];
+		int i = 0;
+		for (Map.Entry<Field, Integer> fieldColumn : fieldColumns.entrySet()) {
+			fields[i] = fieldColumn.getKey();
+			columns[i] = fieldColumn.getValue();
+			labels[i] = columnLabels[columns[i] - 1];
+			i++;
+		}
+
+		return new MappingPlan(type, fields, columns, labels, generateMapper);
+	}
+
+	private static Map<String, Field> indexDeclaredFields(Class<?> type) {
+		Map<String, Field> fieldsByName = new HashMap<>();
+		for (Field field : type.getDeclaredFields()) {
+			fieldsByName.put(field.getName(), field);
+		}
+		return Collections.unmodifiableMap(fieldsByName);
+	}
+
+}
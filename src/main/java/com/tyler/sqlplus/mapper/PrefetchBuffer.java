@@ -0,0 +1,141 @@
+package com.tyler.sqlplus.mapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring buffer between a single producer thread and a single consumer thread. Neither side takes a lock: each
+ * owns one of the two indexes, and a side only parks when the buffer is full (for the producer) or empty (for the
+ * consumer), to be unparked by the other side once it makes progress.
+ * <br/><br/>
+ * The producer signals the end of its items with {@link #finish}, optionally with the error which ended them. The consumer
+ * can stop the producer early with {@link #cancel}
+ */
+final class PrefetchBuffer<T> {
+
+	/** Returned by {@link #take()} once the producer has finished and all of its items have been taken */
+	static final Object END = new Object();
+
+	private final Object[] slots;
+	private final int mask;
+
+	/** Index of the next slot to take from, only advanced by the consumer */
+	private final AtomicLong head = new AtomicLong();
+
+	/** Index of the next slot to put into, only advanced by the producer */
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile Thread parkedProducer;
+	private volatile Thread parkedConsumer;
+	private volatile boolean cancelled;
+	private volatile boolean finished;
+	private volatile Throwable failure;
+
+	/**
+	 * Creates a buffer holding at least the given number of items, rounded up to a power of 2
+	 */
+	PrefetchBuffer(int capacity) {
+		int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.slots = new Object[size];
+		this.mask = size - 1;
+	}
+
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Adds an item, waiting for the consumer to make room if the buffer is full. Returns false, without adding the item, if
+	 * the consumer has cancelled
+	 */
+	boolean put(T item) {
+		long index = tail.get();
+		while (index - head.get() == slots.length) {
+			if (cancelled) {
+				return false;
+			}
+			parkedProducer = Thread.currentThread();
+			if (index - head.get() == slots.length && !cancelled) {
+				LockSupport.park(this);
+			}
+			parkedProducer = null;
+		}
+		if (cancelled) {
+			return false;
+		}
+		slots[(int) index & mask] = item;
+		tail.set(index + 1);
+		unpark(parkedConsumer);
+		return true;
+	}
+
+	/**
+	 * Signals that the producer will add no more items. Must be called by the producer, whether or not it was cancelled
+	 */
+	void finish(Throwable failure) {
+		this.failure = failure;
+		this.finished = true;
+		unpark(parkedConsumer);
+	}
+
+	/**
+	 * Takes the next item, waiting for the producer if the buffer is empty. Returns {@link #END} once the producer has
+	 * finished and every item it added has been taken
+	 */
+	Object take() {
+		long index = head.get();
+		while (index == tail.get()) {
+			if (finished) {
+				if (index == tail.get()) {
+					return END;
+				}
+				break;
+			}
+			parkedConsumer = Thread.currentThread();
+			if (index == tail.get() && !finished) {
+				LockSupport.park(this);
+			}
+			parkedConsumer = null;
+		}
+		int slot = (int) index & mask;
+		Object item = slots[slot];
+		slots[slot] = null;
+		head.set(index + 1);
+		unpark(parkedProducer);
+		return item;
+	}
+
+	/**
+	 * The error which ended the producer, if any. Only meaningful once {@link #take()} has returned {@link #END}
+	 */
+	Throwable getFailure() {
+		return failure;
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Asks the producer to stop, then waits for it to finish. The producer notices the request between items, so this
+	 * waits at most for the item it is producing
+	 */
+	void cancel() {
+		cancelled = true;
+		unpark(parkedProducer);
+		while (!finished) {
+			parkedConsumer = Thread.currentThread();
+			if (!finished) {
+				LockSupport.park(this);
+			}
+			parkedConsumer = null;
+		}
+	}
+
+	private static void unpark(Thread thread) {
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+}
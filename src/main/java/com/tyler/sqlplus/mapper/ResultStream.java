@@ -4,45 +4,296 @@ import com.tyler.sqlplus.exception.SQLRuntimeException;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
- * Encapsulates iteration / function streaming over a result set
+ * Encapsulates iteration / function streaming over a result set.
+ * <br/><br/>
+ * Every stream closes its result set and runs its exhaustion callback exactly once: when the rows are exhausted, when the
+ * stream is closed, or when a terminal operation returns, including short-circuiting ones such as findFirst() which leave
+ * rows unread. Streams consumed through their iterator are only released on exhaustion or close
  */
 public class ResultStream {
 
-	private static class ResultIterator implements Iterator<ResultSet> {
-		
-		private ResultSet rs;
-		
-		public ResultIterator(ResultSet rs) throws SQLException {
+	/** Number of rows by which each successive split grows, and the size of the first one */
+	static final int SPLIT_SIZE_INCREMENT = 256;
+
+	/** Largest number of rows read into a single split */
+	static final int MAX_SPLIT_SIZE = 1 << 14;
+
+	/**
+	 * Advances a result set one row at a time, mapping each row as it is read.
+	 * <br/><br/>
+	 * If the stream is parallel, {@link #trySplit()} reads a chunk of rows from the cursor, maps them, and hands them off as
+	 * an array, so that later stages of the pipeline can process the chunk on another thread. Splits grow arithmetically,
+	 * as those of {@link Spliterators#spliteratorUnknownSize} do, so small results are not broken into needlessly small
+	 * tasks. Only one thread at a time ever holds this spliterator, so the cursor and the mapper are never used concurrently.
+	 * Streams over the raw result set are never split, as every element is the cursor itself
+	 */
+	private static class ResultSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private final boolean splittable;
+		private final Runnable onExhausted;
+		private boolean exhausted;
+		private int splitSize;
+
+		ResultSpliterator(ResultSet rs, RowMapper<T> mapper, boolean splittable, Runnable onExhausted) {
 			this.rs = rs;
+			this.mapper = mapper;
+			this.splittable = splittable;
+			this.onExhausted = onExhausted;
 		}
-		
-		@Override
-		public boolean hasNext() {
+
+		/**
+		 * Moves the cursor to the next row, finishing the stream if there are no more rows
+		 */
+		private boolean advance() {
+			if (exhausted) {
+				return false;
+			}
 			try {
-				return rs.next();
+				if (rs.next()) {
+					return true;
+				}
 			} catch (SQLException e) {
 				throw new SQLRuntimeException(e);
 			}
+			finish();
+			return false;
+		}
+
+		private T mapRow() {
+			try {
+				return mapper.map(rs);
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+		}
+
+		/**
+		 * Closes the result set and runs the exhaustion callback. Only takes effect the first time it is called
+		 */
+		void finish() {
+			if (exhausted) {
+				return;
+			}
+			exhausted = true;
+			try {
+				rs.close();
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			} finally {
+				onExhausted.run();
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (!advance()) {
+				return false;
+			}
+			action.accept(mapRow());
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while (advance()) {
+				action.accept(mapRow());
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (!splittable || exhausted) {
+				return null;
+			}
+			int size = Math.min(splitSize + SPLIT_SIZE_INCREMENT, MAX_SPLIT_SIZE);
+			Object[] rows = new Object[size];
+			int count = 0;
+			while (count < size && advance()) {
+				rows[count++] = mapRow();
+			}
+			if (count == 0) {
+				return null;
+			}
+			splitSize = count;
+			return Spliterators.spliterator(rows, 0, count, Spliterator.ORDERED);
+		}
+
+		@Override
+		public long estimateSize() {
+			return exhausted ? 0 : Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+	}
+
+	/**
+	 * Runs prefetch readers. Created on first use, so no threads are started unless prefetching is used. Each reader holds a
+	 * thread for as long as its stream is open, and idle threads are discarded after a minute
+	 */
+	private static final class PrefetchReaders {
+
+		static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "sqlplus-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+	}
+
+	/**
+	 * Consumes rows which a reader on another thread reads from a result set, maps, and adds to a {@link PrefetchBuffer}.
+	 * The reader owns the result set until it finishes, closing it itself; the exhaustion callback is run on the consuming
+	 * thread once the reader has finished, so it never runs concurrently with the consumer's other work
+	 */
+	private static class PrefetchingSpliterator<T> implements Spliterator<T> {
+
+		private final PrefetchBuffer<T> buffer;
+		private final Runnable onExhausted;
+		private boolean exhausted;
+
+		PrefetchingSpliterator(ResultSet rs, RowMapper<T> mapper, int bufferSize, Runnable onExhausted) {
+			this.buffer = new PrefetchBuffer<>(bufferSize);
+			this.onExhausted = onExhausted;
+			PrefetchReaders.EXECUTOR.execute(() -> read(rs, mapper));
+		}
+
+		private void read(ResultSet rs, RowMapper<T> mapper) {
+			Throwable failure = null;
+			try {
+				while (!buffer.isCancelled() && rs.next()) {
+					if (!buffer.put(mapper.map(rs))) {
+						break;
+					}
+				}
+			} catch (Throwable e) {
+				failure = e;
+			} finally {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+				buffer.finish(failure);
+			}
 		}
 
+		@SuppressWarnings("unchecked")
 		@Override
-		public ResultSet next() {
-			return rs;
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (exhausted) {
+				return false;
+			}
+			Object item = buffer.take();
+			if (item == PrefetchBuffer.END) {
+				exhausted = true;
+				onExhausted.run();
+				Throwable failure = buffer.getFailure();
+				if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				if (failure instanceof Error) {
+					throw (Error) failure;
+				}
+				if (failure != null) {
+					throw new SQLRuntimeException((Exception) failure);
+				}
+				return false;
+			}
+			action.accept((T) item);
+			return true;
+		}
+
+		/**
+		 * Stops the reader, waiting for it to release the result set, and runs the exhaustion callback. Only takes effect if
+		 * the rows have not already been exhausted
+		 */
+		void finish() {
+			if (exhausted) {
+				return;
+			}
+			exhausted = true;
+			try {
+				buffer.cancel();
+			} finally {
+				onExhausted.run();
+			}
 		}
-		
-	};
-	
+
+		@Override
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return exhausted ? 0 : Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+	}
+
 	public static Stream<ResultSet> stream(ResultSet rs) throws SQLException {
-		Iterator<ResultSet> rsIter = new ResultIterator(rs);
-		Spliterator<ResultSet> rsSpliterator = Spliterators.spliteratorUnknownSize(rsIter, Spliterator.ORDERED);
-		return StreamSupport.stream(rsSpliterator, false);
+		return stream(rs, () -> {});
+	}
+
+	/**
+	 * Streams over the given result set. The result set is closed and the given callback is run once the results are
+	 * exhausted, the stream is closed or a terminal operation returns, whichever happens first. Every element is the result
+	 * set itself, so it cannot be read once the terminal operation has returned
+	 */
+	public static Stream<ResultSet> stream(ResultSet rs, Runnable onExhausted) throws SQLException {
+		return stream(new ResultSpliterator<>(rs, row -> row, false, onExhausted));
+	}
+
+	/**
+	 * Streams over the rows of the given result set, mapped with the given mapper. Unlike a stream over the raw result set,
+	 * a parallel stream of mapped rows is split into chunks which later stages of the pipeline process concurrently, while
+	 * the rows themselves are still read and mapped by one thread at a time. The result set is closed and the given callback
+	 * is run once the results are exhausted, the stream is closed or a terminal operation returns, whichever happens first
+	 */
+	public static <T> Stream<T> stream(ResultSet rs, RowMapper<T> mapper, Runnable onExhausted) throws SQLException {
+		return stream(new ResultSpliterator<>(rs, mapper, true, onExhausted));
 	}
-	
+
+	/**
+	 * Streams over the rows of the given result set, mapped with the given mapper, while a reader on a background thread
+	 * reads and maps rows ahead of the consumer into a buffer of the given size. This overlaps waiting on the driver with
+	 * processing rows: a slow consumer no longer stalls fetching, and a slow fetch only stalls the consumer once the buffer
+	 * is empty. The reader waits whenever the buffer is full, so no more than the buffer size of rows are held in memory.
+	 * <br/><br/>
+	 * Closing the stream early stops the reader, waiting for it to finish the row it is on. The result set is closed by the
+	 * reader, and the given callback is run on the consuming thread once the reader has finished, when the results are
+	 * exhausted, the stream is closed or a terminal operation returns, whichever happens first. The result set must not be
+	 * used by any other thread in the meantime
+	 */
+	public static <T> Stream<T> prefetchingStream(ResultSet rs, RowMapper<T> mapper, int bufferSize, Runnable onExhausted) {
+		PrefetchingSpliterator<T> spliterator = new PrefetchingSpliterator<>(rs, mapper, bufferSize, onExhausted);
+		return new ClosingStream<>(StreamSupport.stream(spliterator, false).onClose(spliterator::finish));
+	}
+
+	private static <T> Stream<T> stream(ResultSpliterator<T> spliterator) {
+		return new ClosingStream<>(StreamSupport.stream(spliterator, false).onClose(spliterator::finish));
+	}
+
 }
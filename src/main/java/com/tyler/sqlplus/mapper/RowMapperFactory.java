@@ -5,7 +5,6 @@ import com.tyler.sqlplus.conversion.ConversionRegistry;
 import com.tyler.sqlplus.conversion.SQLConverter;
 import com.tyler.sqlplus.exception.ReflectionException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
-import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.proxy.BeanProxy;
 import com.tyler.sqlplus.utility.Fields;
 import com.tyler.sqlplus.utility.ReflectionUtility;
@@ -16,11 +15,14 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Utility for creating result mappers for Java class types
  */
 public final class RowMapperFactory {
+
+	private static volatile boolean generatedMappersEnabled = true;
 	
 	private RowMapperFactory() {}
 
@@ -68,33 +70,62 @@ public final class RowMapperFactory {
 			};
 		}
 
-		boolean shouldReturnProxy = BeanProxy.isProxiable(klass);
-
 		return new RowMapper<E>() {
 
-			private Map<Field, String> loadableFields;
-			
+			private RowMapper<E> layoutMapper;
+
 			@Override
 			public E map(ResultSet rs) throws SQLException {
-
-				if (loadableFields == null) {
-					loadableFields = determineLoadableFields(rs, klass);
+				if (layoutMapper == null) {
+					layoutMapper = newLayoutMapper(klass, rs.getMetaData(), conversionRegistry, session);
 				}
+				return layoutMapper.map(rs);
+			}
+
+		};
+		
+	}
+
+	/**
+	 * Enables or disables bytecode generation of POJO row mappers. When disabled, or when a mapper cannot be generated for
+	 * a type, POJOs are mapped reflectively. Enabled by default
+	 */
+	public static void setGeneratedMappersEnabled(boolean enabled) {
+		generatedMappersEnabled = enabled;
+	}
+
+	/**
+	 * Creates a mapper for the given POJO type which is specific to the column layout of the given result set metadata
+	 */
+	private static <E> RowMapper<E> newLayoutMapper(Class<E> klass, ResultSetMetaData meta, ConversionRegistry conversionRegistry, Session session) throws SQLException {
 
-				E instance = shouldReturnProxy ? BeanProxy.create(klass, session) : ReflectionUtility.newInstance(klass);
+		MappingPlan plan = MappingPlan.forLayout(klass, meta);
 
-				loadableFields.forEach((loadableField, columnName) -> {
-					Class<?> fieldType = loadableField.getType();
-					SQLConverter converter = conversionRegistry.getConverter(loadableField);
-					Object fieldValue = Functions.runSQL(() -> converter.read(rs, columnName, fieldType));
-					Fields.set(loadableField, instance, fieldValue);
-				});
-				
-				return instance;
+		if (generatedMappersEnabled) {
+			RowMapper<E> generatedMapper = RowMapperGenerator.newMapper(plan, conversionRegistry, session);
+			if (generatedMapper != null) {
+				return generatedMapper;
 			}
+		}
+
+		boolean shouldReturnProxy = BeanProxy.isProxiable(klass);
+		Field[] fields = plan.fields;
+		int[] columns = plan.columns;
+		SQLConverter[] converters = new SQLConverter[fields.length];
+		BiConsumer[] setters = new BiConsumer[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			converters[i] = conversionRegistry.getConverter(fields[i]);
+			setters[i] = Fields.setter(fields[i]);
+		}
 
+		return rs -> {
+			E instance = shouldReturnProxy ? BeanProxy.create(klass, session) : ReflectionUtility.newInstance(klass);
+			for (int i = 0; i < fields.length; i++) {
+				Object fieldValue = converters[i].read(rs, columns[i], fields[i].getType());
+				setters[i].accept(instance, fieldValue);
+			}
+			return instance;
 		};
-		
 	}
 
 	/**
@@ -107,30 +138,12 @@ public final class RowMapperFactory {
 	 * instance, 'myField' would translate to the column name 'MY_FIELD'
 	 */
 	static Map<Field, String> determineLoadableFields(ResultSet rs, Class<?> type) throws SQLException {
-		
+		MappingPlan plan = MappingPlan.forLayout(type, rs.getMetaData());
 		Map<Field, String> loadableFields = new HashMap<>();
-		ResultSetMetaData meta = rs.getMetaData();
-		
-		for (int col = 1, colMax = meta.getColumnCount(); col <= colMax; col++) {
-			
-			String columnLabel = meta.getColumnLabel(col);
-
-			Field fieldForLabel;
-			try {
-				fieldForLabel = type.getDeclaredField(columnLabel);
-			} catch (NoSuchFieldException e) {
-				try {
-					String convertedToCamelCase = Fields.underscoreToCamelCase(columnLabel);
-					fieldForLabel = type.getDeclaredField(convertedToCamelCase);
-				} catch (NoSuchFieldException e2) {
-					continue;
-				}
-			}
-
-			loadableFields.put(fieldForLabel, columnLabel);
+		for (int i = 0; i < plan.fields.length; i++) {
+			loadableFields.put(plan.fields[i], plan.labels[i]);
 		}
-		
 		return loadableFields;
 	}
-	
+
 }
@@ -0,0 +1,207 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.Session;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+import com.tyler.sqlplus.proxy.BeanProxy;
+import com.tyler.sqlplus.utility.Fields;
+import com.tyler.sqlplus.utility.ReflectionUtility;
+import javassist.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Generates {@link RowMapper} classes specialized for a single entity type and result set column layout.
+ * <br/><br/>
+ * A generated mapper reads each mapped column by index through its pre-resolved converter and assigns the value
+ * directly to the entity field, without any per-row lookups or reflection. Fields which cannot be accessed from
+ * generated code (private or final fields, or fields whose type is not visible) fall back to {@link Fields#setter}.
+ * <br/><br/>
+ * Generated classes are cached on the {@link MappingPlan} for each entity type and column layout. If a class cannot be
+ * generated or defined for a type (for instance, due to class loader restrictions), that is cached as well and callers
+ * should fall back to reflective mapping. Callers also fall back for layouts past {@link MappingPlan#MAX_LAYOUTS_PER_TYPE},
+ * for which no class is generated
+ */
+final class RowMapperGenerator {
+
+	private static final String GENERATED_CLASS_SUFFIX = "$$SQLPlusRowMapper$";
+
+	private static final AtomicInteger GENERATED_CLASS_COUNT = new AtomicInteger();
+
+	private RowMapperGenerator() {}
+
+	/**
+	 * Creates an instance of the generated mapper for the given mapping plan.
+	 * @return The generated mapper, or null if one cannot be generated for the plan's type
+	 */
+	@SuppressWarnings("unchecked")
+	static <E> RowMapper<E> newMapper(MappingPlan plan, ConversionRegistry conversionRegistry, Session session) {
+
+		Optional<Class<?>> mapperClass = plan.getGeneratedMapperClass();
+		if (!mapperClass.isPresent()) {
+			return null;
+		}
+
+		Field[] fields = plan.fields;
+		SQLConverter[] converters = new SQLConverter[fields.length];
+		Class[] targetTypes = new Class[fields.length];
+		BiConsumer[] setters = new BiConsumer[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			converters[i] = conversionRegistry.getConverter(fields[i]);
+			targetTypes[i] = fields[i].getType();
+			if (!isDirectlyAssignable(fields[i], plan.type)) {
+				setters[i] = Fields.setter(fields[i]);
+			}
+		}
+
+		GeneratedRowMapper<E> mapper = (GeneratedRowMapper<E>) ReflectionUtility.newInstance(mapperClass.get());
+		mapper.init((Class<E>) plan.type, session, converters, targetTypes, setters);
+		return mapper;
+	}
+
+	/**
+	 * Generates and defines a mapper class for the given type which maps each field from its respective column
+	 * @return The generated class, or empty if one cannot be generated for this type
+	 */
+	static Optional<Class<?>> generate(Class<?> type, Field[] fields, int[] columns) {
+
+		ClassLoader loader = type.getClassLoader();
+		if (loader == null) {
+			return Optional.empty();
+		}
+
+		ClassPool pool = new ClassPool(true);
+		pool.appendClassPath(new LoaderClassPath(loader));
+		pool.appendClassPath(new ClassClassPath(GeneratedRowMapper.class));
+
+		try {
+			CtClass mapperClass = pool.makeClass(type.getName() + GENERATED_CLASS_SUFFIX + GENERATED_CLASS_COUNT.incrementAndGet());
+			mapperClass.setSuperclass(pool.get(GeneratedRowMapper.class.getName()));
+			mapperClass.addConstructor(CtNewConstructor.defaultConstructor(mapperClass));
+			mapperClass.addMethod(CtNewMethod.make(generateMapSource(type, fields, columns), mapperClass));
+			Class<?> generated = mapperClass.toClass(loader, type.getProtectionDomain());
+			mapperClass.detach();
+			return Optional.of(generated);
+		}
+		catch (NotFoundException | CannotCompileException | RuntimeException | LinkageError e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Produces the source for the map() method of a generated mapper. For example, for an entity with a public String
+	 * field 'name' mapped from column 2 and a private int field 'age' mapped from column 1, this would produce:
+	 * <pre>
+	 * public Object map(java.sql.ResultSet rs) throws java.sql.SQLException {
+	 *     com.app.Person instance = new com.app.Person();
+	 *     Object value;
+	 *     value = this.converters[0].read(rs, 2, this.targetTypes[0]);
+	 *     instance.name = (java.lang.String) value;
+	 *     value = this.converters[1].read(rs, 1, this.targetTypes[1]);
+	 *     ((java.util.function.BiConsumer) this.setters[1]).accept(instance, value);
+	 *     return instance;
+	 * }
+	 * </pre>
+	 */
+	private static String generateMapSource(Class<?> type, Field[] fields, int[] columns) {
+
+		String typeName = type.getName();
+
+		StringBuilder src = new StringBuilder();
+		src.append("public Object map(java.sql.ResultSet rs) throws java.sql.SQLException {\n");
+		src.append(typeName).append(" instance = ").append(generateInstantiation(type)).append(";\n");
+		src.append("Object value;\n");
+
+		for (int i = 0; i < fields.length; i++) {
+
+			Field field = fields[i];
+			Class<?> fieldType = field.getType();
+			src.append("value = this.converters[").append(i).append("].read(rs, ").append(columns[i]).append(", this.targetTypes[").append(i).append("]);\n");
+
+			if (!isDirectlyAssignable(field, type)) {
+				src.append("((java.util.function.BiConsumer) this.setters[").append(i).append("]).accept(instance, value);\n");
+			}
+			else if (fieldType.isPrimitive()) {
+				src.append("if (value != null) instance.").append(field.getName()).append(" = ").append(unbox(fieldType)).append(";\n");
+			}
+			else {
+				src.append("instance.").append(field.getName()).append(" = (").append(fieldType.getName()).append(") value;\n");
+			}
+		}
+
+		src.append("return instance;\n");
+		src.append("}");
+		return src.toString();
+	}
+
+	private static String generateInstantiation(Class<?> type) {
+		String typeName = type.getName();
+		if (BeanProxy.isProxiable(type)) {
+			return "(" + typeName + ") " + BeanProxy.class.getName() + ".create(this.type, this.session)";
+		}
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			if (!Modifier.isPrivate(constructor.getModifiers()) && !Modifier.isAbstract(type.getModifiers())) {
+				return "new " + typeName + "()";
+			}
+		} catch (NoSuchMethodException e) {
+			// Defer to ReflectionUtility, which will throw a descriptive error
+		}
+		return "(" + typeName + ") " + ReflectionUtility.class.getName() + ".newInstance(this.type)";
+	}
+
+	/**
+	 * Generated mappers are defined in the entity's package and class loader, so they can assign any non-private,
+	 * non-final instance field declared by the entity whose type is also visible from that package
+	 */
+	private static boolean isDirectlyAssignable(Field field, Class<?> type) {
+		int mods = field.getModifiers();
+		if (Modifier.isPrivate(mods) || Modifier.isFinal(mods) || Modifier.isStatic(mods) || field.getDeclaringClass() != type) {
+			return false;
+		}
+		Class<?> fieldType = field.getType();
+		if (fieldType.isPrimitive()) {
+			return true;
+		}
+		if (fieldType.isArray()) {
+			return false;
+		}
+		return Modifier.isPublic(fieldType.getModifiers()) && isPublicEnclosing(fieldType) || packageName(fieldType).equals(packageName(type));
+	}
+
+	private static String packageName(Class<?> klass) {
+		String name = klass.getName();
+		int lastDot = name.lastIndexOf('.');
+		return lastDot == -1 ? "" : name.substring(0, lastDot);
+	}
+
+	private static boolean isPublicEnclosing(Class<?> klass) {
+		for (Class<?> enclosing = klass.getEnclosingClass(); enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+			if (!Modifier.isPublic(enclosing.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Produces an expression which unboxes the 'value' variable to the given primitive type. Numeric primitives are
+	 * unboxed through {@link Number} so that converters returning a different numeric type behave as they would with
+	 * reflective assignment
+	 */
+	private static String unbox(Class<?> primitive) {
+		if (primitive == boolean.class) {
+			return "((java.lang.Boolean) value).booleanValue()";
+		}
+		if (primitive == char.class) {
+			return "((java.lang.Character) value).charValue()";
+		}
+		return "((java.lang.Number) value)." + primitive.getName() + "Value()";
+	}
+
+}
@@ -4,13 +4,15 @@ import com.tyler.sqlplus.Query;
 import com.tyler.sqlplus.Session;
 import com.tyler.sqlplus.annotation.LoadQuery;
 import com.tyler.sqlplus.exception.AnnotationConfigurationException;
+import com.tyler.sqlplus.exception.ReflectionException;
 import com.tyler.sqlplus.exception.SessionClosedException;
 import com.tyler.sqlplus.interpreter.QueryInterpreter;
 import com.tyler.sqlplus.utility.Fields;
-import com.tyler.sqlplus.utility.ReflectionUtility;
+import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
@@ -22,49 +24,61 @@ import java.util.*;
 public class BeanProxy {
 
 	/**
-	 * Cache structure for lazy-load info for different class types
+	 * Cache structure for lazy-load info for different class types. Values are immutable once computed, and {@link ClassValue}
+	 * publishes them safely to every thread without locking on reads
 	 */
-	static final Map<Class<?>, Map<Method, LazyLoadInfo>> LAZY_LOAD_METHODS_BY_CLASS = new HashMap<>();
+	static final ClassValue<Map<Method, LazyLoadInfo>> LAZY_LOAD_METHODS_BY_CLASS = new ClassValue<Map<Method, LazyLoadInfo>>() {
+		@Override
+		protected Map<Method, LazyLoadInfo> computeValue(Class<?> type) {
+			return parseLazyLoadInfo(type);
+		}
+	};
+
+	/**
+	 * Cache structure for generated proxy class constructors. Generating a proxy class is costly, so only 1 is created per entity type.
+	 * Threads racing to create the first proxy of a type may each generate a class, but only one constructor is ever published
+	 */
+	static final ClassValue<Constructor<?>> PROXY_CONSTRUCTOR_BY_CLASS = new ClassValue<Constructor<?>>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> type) {
+			return createProxyConstructor(type);
+		}
+	};
 
 	/**
 	 * Creates a proxy of the given class type which will intercept method calls in order to lazy-load related entities
 	 */
 	public static <T> T create(Class<T> type, Session session) {
-		
-		ProxyFactory factory = new ProxyFactory();
-		factory.setSuperclass(type);
-		factory.setFilter(getLazyLoadInfo(type)::containsKey);
-
-		@SuppressWarnings("unchecked")
-		T proxy = (T) ReflectionUtility.newInstance(factory.createClass());
 
-		final Set<Method> methodsLoaded = new HashSet<>();
-		((Proxy) proxy).setHandler((self, invokedMethod, proceed, args) -> {
-
-			boolean isFirstTimeInvocation = methodsLoaded.add(invokedMethod);
-			if (isFirstTimeInvocation) {
-
-				LazyLoadInfo lazyLoadInfo = getLazyLoadInfo(type).get(invokedMethod);
-				String loadSQL = lazyLoadInfo.loadSQL;
-				Field loadField = lazyLoadInfo.loadField;
-
-				if (!session.isOpen()) {
-					throw new SessionClosedException("Cannot lazy-load field " + loadField + ", session is no longer open");
-				}
+		Constructor<?> proxyConstructor = PROXY_CONSTRUCTOR_BY_CLASS.get(type);
 
-				Query query = session.createQuery(loadSQL).bind(self);
-				Type loadType = loadField.getGenericType();
-				QueryInterpreter interpreter = QueryInterpreter.forType(loadType);
-				Object result = interpreter.interpret(query, loadType, loadField);
-				Fields.set(loadField, self, result);
-			}
+		T proxy;
+		try {
+			proxy = type.cast(proxyConstructor.newInstance());
+		} catch (Exception e) {
+			throw new ReflectionException("Could not instantiate proxy for " + type, e);
+		}
 
-			return proceed.invoke(self, args);
-		});
-		
+		((Proxy) proxy).setHandler(new LazyLoadHandler(getLazyLoadInfo(type), session));
 		return proxy;
 	}
 
+	/**
+	 * Generates the proxy class for the given type and returns its no-argument constructor, made accessible for repeated use
+	 */
+	private static Constructor<?> createProxyConstructor(Class<?> type) {
+		ProxyFactory factory = new ProxyFactory();
+		factory.setSuperclass(type);
+		factory.setFilter(getLazyLoadInfo(type)::containsKey);
+		try {
+			Constructor<?> proxyConstructor = factory.createClass().getDeclaredConstructor();
+			proxyConstructor.setAccessible(true);
+			return proxyConstructor;
+		} catch (NoSuchMethodException e) {
+			throw new ReflectionException(type + " requires a no-argument constructor for instantiation");
+		}
+	}
+
 	/**
 	 * Determines if the given class type should result in proxy objects being returned when mapping POJOs.
 	 * Proxy objects are returned if there is at least 1 field or method in the class with a @LoadQuery annotation
@@ -74,7 +88,7 @@ public class BeanProxy {
 	}
 
 	private static Map<Method, LazyLoadInfo> getLazyLoadInfo(Class<?> klass) {
-		return LAZY_LOAD_METHODS_BY_CLASS.computeIfAbsent(klass, BeanProxy::parseLazyLoadInfo);
+		return LAZY_LOAD_METHODS_BY_CLASS.get(klass);
 	}
 
 	/**
@@ -127,7 +141,53 @@ public class BeanProxy {
 
 		}
 
-		return parsedInfo;
+		return parsedInfo.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(parsedInfo);
+	}
+
+	/**
+	 * Method handler installed on each proxy instance. Loads the related entity for a lazy-loading method the first time it is invoked
+	 */
+	private static class LazyLoadHandler implements MethodHandler {
+
+		private final Map<Method, LazyLoadInfo> lazyLoadInfoByMethod;
+		private final Session session;
+
+		/** Allocated on the first lazy-load, since most mapped rows will never trigger one */
+		private Set<Method> methodsLoaded;
+
+		public LazyLoadHandler(Map<Method, LazyLoadInfo> lazyLoadInfoByMethod, Session session) {
+			this.lazyLoadInfoByMethod = lazyLoadInfoByMethod;
+			this.session = session;
+		}
+
+		@Override
+		public Object invoke(Object self, Method invokedMethod, Method proceed, Object[] args) throws Throwable {
+
+			if (methodsLoaded == null) {
+				methodsLoaded = new HashSet<>();
+			}
+
+			boolean isFirstTimeInvocation = methodsLoaded.add(invokedMethod);
+			if (isFirstTimeInvocation) {
+
+				LazyLoadInfo lazyLoadInfo = lazyLoadInfoByMethod.get(invokedMethod);
+				String loadSQL = lazyLoadInfo.loadSQL;
+				Field loadField = lazyLoadInfo.loadField;
+
+				if (!session.isOpen()) {
+					throw new SessionClosedException("Cannot lazy-load field " + loadField + ", session is no longer open");
+				}
+
+				Query query = session.createQuery(loadSQL).bind(self);
+				Type loadType = loadField.getGenericType();
+				QueryInterpreter interpreter = QueryInterpreter.forType(loadType);
+				Object result = interpreter.interpret(query, loadType, loadField);
+				Fields.set(loadField, self, result);
+			}
+
+			return proceed.invoke(self, args);
+		}
+
 	}
 
 	private static class LazyLoadInfo {
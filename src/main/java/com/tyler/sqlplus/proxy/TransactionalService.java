@@ -13,10 +13,10 @@ import com.tyler.sqlplus.utility.ReflectionUtility;
 import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Creates proxy objects capable of wrapping {@link Transactional} annotated methods in SQLPlus transactions as
@@ -24,6 +24,17 @@ import java.util.Optional;
  */
 public class TransactionalService {
 
+	/**
+	 * Cache of the @{@link KeyField} annotated field of each class bound with a key provider, which is otherwise searched for
+	 * once per bound object
+	 */
+	private static final ClassValue<Optional<Field>> KEY_FIELD_BY_CLASS = new ClassValue<Optional<Field>>() {
+		@Override
+		protected Optional<Field> computeValue(Class<?> type) {
+			return ReflectionUtility.findFieldWithAnnotation(KeyField.class, type);
+		}
+	};
+
 	public static <T> T create(Class<T> serviceClass, SQLPlus sqlPlus) throws InstantiationException, IllegalAccessException {
 		
 		ProxyFactory factory = new ProxyFactory();
@@ -37,6 +48,10 @@ public class TransactionalService {
 		                            method.isAnnotationPresent(SQLUpdate.class));
 		@SuppressWarnings("unchecked")
 		T serviceProxy = (T) factory.createClass().newInstance();
+
+		// One instance of each key provider class given to @SQLUpdate per service, so that providers which reserve keys ahead
+		// of time, such as HiLoKeyProvider, keep their state across invocations without sharing it with other databases
+		Map<Class<?>, KeyProvider<?>> keyProviders = new ConcurrentHashMap<>();
 		
 		Optional<Field> sqlPlusField = ReflectionUtility.findFieldWithAnnotation(Database.class, serviceClass);
 		if (sqlPlusField.isPresent()) {
@@ -52,11 +67,15 @@ public class TransactionalService {
 			int isolation;
 
 			if (overriddenMethod.isAnnotationPresent(SQLQuery.class)) {
-				isolation = overriddenMethod.getAnnotation(SQLQuery.class).isolation();
+				SQLQuery sqlQuery = overriddenMethod.getAnnotation(SQLQuery.class);
+				isolation = sqlQuery.isolation();
 				workToDoInTransaction = session -> invokeQuery(overriddenMethod, args, session);
+				if (sqlQuery.readOnly()) {
+					return sqlPlus.query(isolation, workToDoInTransaction);
+				}
 			} else if (overriddenMethod.isAnnotationPresent(SQLUpdate.class)) {
 				isolation = overriddenMethod.getAnnotation(SQLUpdate.class).isolation();
-				workToDoInTransaction = session -> invokeUpdate(overriddenMethod, args, session);
+				workToDoInTransaction = session -> invokeUpdate(overriddenMethod, args, session, keyProviders);
 			} else {
 				isolation = overriddenMethod.getAnnotation(Transactional.class).isolation();
 				workToDoInTransaction = session -> proceed.invoke(self, args);
@@ -75,16 +94,24 @@ public class TransactionalService {
 			throw new AnnotationConfigurationException("@" + SQLQuery.class.getSimpleName() + " annotated method " + queryMethod + " must declare a return type");
 		}
 		
-		String sql = queryMethod.getAnnotation(SQLQuery.class).value();
-		Query query = session.createQuery(sql);
-		bindParams(query, queryMethod.getParameters(), invokeArgs, session, null);
+		SQLQuery queryAnnot = queryMethod.getAnnotation(SQLQuery.class);
+		Query query = session.createQuery(queryAnnot.value())
+		                     .setFetchSize(queryAnnot.fetchSize())
+		                     .setMaxRows(queryAnnot.maxRows())
+		                     .setQueryTimeout(queryAnnot.timeout())
+		                     .setResultSetType(queryAnnot.resultSetType(), queryAnnot.resultSetConcurrency());
+		bindParams(query, queryMethod.getParameters(), invokeArgs, session, null, null);
 		
 		Type genericReturnType = queryMethod.getGenericReturnType();
 		QueryInterpreter interpreter = QueryInterpreter.forType(genericReturnType);
 		return interpreter.interpret(query, genericReturnType, queryMethod);
 	}
 	
-	static Object invokeUpdate(Method queryMethod, Object[] invokeArgs, Session session) throws Exception {
+	/**
+	 * Executes an @{@link SQLUpdate} annotated method. Key provider classes are instantiated once, and then taken from the
+	 * given map
+	 */
+	static Object invokeUpdate(Method queryMethod, Object[] invokeArgs, Session session, Map<Class<?>, KeyProvider<?>> keyProviders) throws Exception {
 		
 		SQLUpdate updateAnnot = queryMethod.getAnnotation(SQLUpdate.class);
 
@@ -96,42 +123,70 @@ public class TransactionalService {
 
 		KeyProvider<?> keyProvider = null;
 		if (hasKeyProviderClass) {
-			keyProvider = ReflectionUtility.newInstance(updateAnnot.keyProvider());
+			keyProvider = keyProviders.computeIfAbsent(updateAnnot.keyProvider(), type -> (KeyProvider<?>) ReflectionUtility.newInstance(type));
 		}
 		else if (hasKeySQL) {
 			Class<?> bindClass = invokeArgs[0].getClass();
-			Optional<Field> keyField = ReflectionUtility.findFieldWithAnnotation(KeyField.class, bindClass);
+			Optional<Field> keyField = KEY_FIELD_BY_CLASS.get(bindClass);
 			if (!keyField.isPresent()) {
 				throw new AnnotationConfigurationException("No @" + KeyField.class.getSimpleName() + " annotation found in " + bindClass + " to bind a key value to");
 			}
 			keyProvider = new QueryKeyProvider<>(updateAnnot.keyQuery(), keyField.get().getType());
 		}
 
+		boolean returnsKeys = updateAnnot.returnInfo() == SQLUpdate.ReturnInfo.GENERATED_KEYS;
+		Class<?> keyClass = null;
+		if (returnsKeys) {
+			Type genericReturnType = queryMethod.getGenericReturnType();
+			if (genericReturnType == void.class || genericReturnType == Void.class) {
+				keyClass = null; // Keys are only back-filled, so they are read as the type of the key field
+			} else if (genericReturnType instanceof Class) {
+				keyClass = (Class<?>) genericReturnType;
+			} else if (genericReturnType instanceof ParameterizedType) {
+				ParameterizedType paramType = (ParameterizedType) genericReturnType;
+				keyClass = (Class<?>) paramType.getActualTypeArguments()[0];
+			} else {
+				throw new QueryInterpretationException("Cannot determine key return type for " + queryMethod);
+			}
+		}
+
+		// Generated keys are back-filled into the key fields of bound objects, unless a key provider has already assigned them
+		List<Object> boundObjects = returnsKeys && keyProvider == null ? new ArrayList<>() : null;
+
 		Query updateQuery = session.createQuery(updateAnnot.value());
-		bindParams(updateQuery, queryMethod.getParameters(), invokeArgs, session, keyProvider);
+		bindParams(updateQuery, queryMethod.getParameters(), invokeArgs, session, keyProvider, boundObjects);
+
+		Optional<Field> backFillKeyField = Optional.empty();
+		if (boundObjects != null && !boundObjects.isEmpty()) {
+			backFillKeyField = KEY_FIELD_BY_CLASS.get(boundObjects.get(0).getClass());
+			if (keyClass == null && backFillKeyField.isPresent()) {
+				keyClass = MethodType.methodType(backFillKeyField.get().getType()).wrap().returnType();
+			}
+		}
+		if (returnsKeys && keyClass == null) {
+			throw new QueryInterpretationException("Cannot determine key return type for " + queryMethod);
+		}
+
+		if (updateAnnot.batchFlushSize() > 0) {
+			updateQuery.setBatchFlushSize(updateAnnot.batchFlushSize(), keyClass);
+		}
 
 		switch (updateAnnot.returnInfo()) {
 
 			case GENERATED_KEYS:
 
-				Class<?> keyClass;
-				Type genericReturnType = queryMethod.getGenericReturnType();
-				if (genericReturnType instanceof Class) {
-					keyClass = (Class<?>) genericReturnType;
-				} else if (genericReturnType instanceof ParameterizedType) {
-					ParameterizedType paramType = (ParameterizedType) genericReturnType;
-					keyClass = (Class<?>) paramType.getActualTypeArguments()[0];
-				} else {
-					throw new QueryInterpretationException("Cannot determine key return type for " + queryMethod);
+				List<?> keys = updateQuery.executeUpdate(keyClass);
+				if (backFillKeyField.isPresent()) {
+					assignKeys(boundObjects, keys, keyClass);
 				}
 
-				@SuppressWarnings("rawtypes")
-				Collection keys = updateQuery.executeUpdate(keyClass);
-
-				if (Collection.class.isAssignableFrom(queryMethod.getReturnType())) {
+				Class<?> keyReturnType = queryMethod.getReturnType();
+				if (keyReturnType == void.class || keyReturnType == Void.class) {
+					return null;
+				} else if (Collection.class.isAssignableFrom(keyReturnType)) {
 					return keys;
 				} else {
-					return keys.isEmpty() ? null : keys.iterator().next();
+					return keys.isEmpty() ? null : keys.get(0);
 				}
 
 			case AFFECTED_ROWS:
@@ -157,7 +212,35 @@ public class TransactionalService {
 		
 	}
 	
-	private static void bindParams(Query query, Parameter[] params, Object[] invokeArgs, Session session, KeyProvider<?> keyProvider) throws Exception {
+	/**
+	 * Assigns generated keys to the @{@link KeyField} annotated fields of the bound objects, in batch order. Keys are only
+	 * assigned if one was generated for every bound object, and only to objects whose key field can hold the key class
+	 * @throws QueryInterpretationException If keys were generated, but not one for each bound object
+	 */
+	private static void assignKeys(List<Object> boundObjects, List<?> keys, Class<?> keyClass) {
+
+		if (keys.isEmpty()) {
+			return;
+		}
+		if (keys.size() != boundObjects.size()) {
+			throw new QueryInterpretationException(
+				"Received " + keys.size() + " generated keys for " + boundObjects.size() + " bound objects, cannot assign them to @" + KeyField.class.getSimpleName() + " fields");
+		}
+
+		for (int i = 0; i < boundObjects.size(); i++) {
+			Object boundObject = boundObjects.get(i);
+			Optional<Field> keyField = KEY_FIELD_BY_CLASS.get(boundObject.getClass());
+			if (keyField.isPresent() && MethodType.methodType(keyField.get().getType()).wrap().returnType().isAssignableFrom(keyClass)) {
+				Fields.set(keyField.get(), boundObject, keys.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Binds the invocation arguments to the query. Objects bound from @{@link BindObject} parameters are added to the given
+	 * list in batch order, if one is given
+	 */
+	private static void bindParams(Query query, Parameter[] params, Object[] invokeArgs, Session session, KeyProvider<?> keyProvider, List<Object> boundObjects) throws Exception {
 
 		for (int i = 0; i < params.length; i++) {
 			Parameter param = params[i];
@@ -168,17 +251,42 @@ public class TransactionalService {
 				query.setParameter(paramLabel, invokeArg);
 			}
 			else if (param.isAnnotationPresent(BindObject.class)) {
-				ReflectionUtility.each(invokeArg, obj -> {
-					if (keyProvider != null) {
-						Field keyField = ReflectionUtility.findFieldWithAnnotation(KeyField.class, obj.getClass())
-						                                  .orElseThrow(() -> new AnnotationConfigurationException("No @" + KeyField.class.getSimpleName() + " annotation found in " + obj.getClass() + " to bind a key value to"));
-						Object newKey = keyProvider.getKey(session);
-						Fields.set(keyField, obj, newKey);
-					}
+				List<Object> objectsToBind = new ArrayList<>();
+				ReflectionUtility.each(invokeArg, objectsToBind::add);
+				if (keyProvider != null) {
+					assignProvidedKeys(objectsToBind, keyProvider, session);
+				}
+				for (Object obj : objectsToBind) {
 					query.bind(obj);
-				});
+					if (boundObjects != null) {
+						boundObjects.add(obj);
+					}
+				}
 			}
 		}
 	}
 
+	/**
+	 * Assigns a new key from the given key provider to the @{@link KeyField} annotated field of each of the given objects.
+	 * All keys are requested from the provider at once
+	 */
+	private static void assignProvidedKeys(List<Object> objects, KeyProvider<?> keyProvider, Session session) throws Exception {
+
+		if (objects.isEmpty()) {
+			return;
+		}
+
+		Field[] keyFields = new Field[objects.size()];
+		for (int i = 0; i < keyFields.length; i++) {
+			Object obj = objects.get(i);
+			keyFields[i] = KEY_FIELD_BY_CLASS.get(obj.getClass())
+			                                 .orElseThrow(() -> new AnnotationConfigurationException("No @" + KeyField.class.getSimpleName() + " annotation found in " + obj.getClass() + " to bind a key value to"));
+		}
+
+		List<?> newKeys = keyProvider.getKeys(session, objects.size());
+		for (int i = 0; i < keyFields.length; i++) {
+			Fields.set(keyFields[i], objects.get(i), newKeys.get(i));
+		}
+	}
+
 }
@@ -1,68 +1,121 @@
 package com.tyler.sqlplus.utility;
 
 import com.tyler.sqlplus.exception.ReflectionException;
-import com.tyler.sqlplus.function.Functions;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Utilities for working with {@link Field} objects
  */
 public final class Fields {
 
-	// It is important to cache reflective data since it is costly to lookup
-	private static final Map<Field, Functions.ThrowingFunction<Object, Object>> FIELD_GETTER = new HashMap<>();
-	private static final Map<Field, Functions.ThrowingBiConsumer<Object, Object>> FIELD_SETTER = new HashMap<>();
-	
+	// It is important to cache reflective data since it is costly to lookup. Getters are resolved against the runtime class
+	// of the instance, since it may declare a javabeans getter for the field. Setters always write the field directly
+	private static final ClassValue<Map<Field, Function<Object, Object>>> GETTERS_BY_CLASS = new ClassValue<Map<Field, Function<Object, Object>>>() {
+		@Override
+		protected Map<Field, Function<Object, Object>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private static final ClassValue<Map<Field, BiConsumer<Object, Object>>> SETTERS_BY_CLASS = new ClassValue<Map<Field, BiConsumer<Object, Object>>>() {
+		@Override
+		protected Map<Field, BiConsumer<Object, Object>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
 	private Fields() {}
 
 	public static Object get(Field field, Object instance) {
+		return getter(instance.getClass(), field).apply(instance);
+	}
 
-		Functions.ThrowingFunction<Object, Object> getterFunction = FIELD_GETTER.computeIfAbsent(field, f -> {
-			String capFieldName = capitalize(field.getName());
-			try {
-				Method getter = instance.getClass().getDeclaredMethod("get" + capFieldName);
-				return getter::invoke; 
-			}
-			catch (NoSuchMethodException e1) {
-				try {
-					Method getter = instance.getClass().getDeclaredMethod("is" + capFieldName);
-					return getter::invoke;
-				}
-				catch (NoSuchMethodException e2) {
-					field.setAccessible(true);
-					return field::get;
-				}
-			}
-		});
-		
+	public static void set(Field field, Object instance, Object value) {
+		setter(field).accept(instance, value);
+	}
+
+	/**
+	 * Returns a function which reads the given field from instances of the given class, through the javabeans style getter
+	 * declared by that class if there is one, or else directly. Callers which read the same field repeatedly should hold
+	 * on to the returned function rather than calling {@link #get(Field, Object)} each time.
+	 * <br/>
+	 * Failures while reading, including exceptions thrown by getters, are rethrown as {@link ReflectionException}
+	 */
+	public static Function<Object, Object> getter(Class<?> type, Field field) {
+		Map<Field, Function<Object, Object>> getters = GETTERS_BY_CLASS.get(type);
+		Function<Object, Object> getter = getters.get(field);
+		return getter != null ? getter : getters.computeIfAbsent(field, f -> newGetter(type, f));
+	}
+
+	/**
+	 * Returns a function which writes the given field directly. Callers which write the same field repeatedly should hold
+	 * on to the returned function rather than calling {@link #set(Field, Object, Object)} each time.
+	 * <br/>
+	 * Failures while writing are rethrown as {@link ReflectionException}
+	 */
+	public static BiConsumer<Object, Object> setter(Field field) {
+		Map<Field, BiConsumer<Object, Object>> setters = SETTERS_BY_CLASS.get(field.getDeclaringClass());
+		BiConsumer<Object, Object> setter = setters.get(field);
+		return setter != null ? setter : setters.computeIfAbsent(field, Fields::newSetter);
+	}
+
+	private static Function<Object, Object> newGetter(Class<?> type, Field field) {
+		String capFieldName = capitalize(field.getName());
+		Method getter = findDeclaredMethod(type, "get" + capFieldName);
+		if (getter == null) {
+			getter = findDeclaredMethod(type, "is" + capFieldName);
+		}
 		try {
-			return getterFunction.apply(instance);
-		} catch (Exception e) {
-			throw new ReflectionException(e);
+			if (getter != null) {
+				getter.setAccessible(true);
+				Method getterMethod = getter;
+				return instance -> {
+					try {
+						return getterMethod.invoke(instance);
+					} catch (Exception e) {
+						throw new ReflectionException(e);
+					}
+				};
+			}
+			field.setAccessible(true);
+		} catch (RuntimeException e) {
+			throw new ReflectionException("Could not create accessor for " + field, e);
 		}
+		return instance -> {
+			try {
+				return field.get(instance);
+			} catch (Exception e) {
+				throw new ReflectionException(e);
+			}
+		};
 	}
 
-	public static void set(Field field, Object instance, Object value) {
-		
-		Functions.ThrowingBiConsumer<Object, Object> setterFunction = FIELD_SETTER.computeIfAbsent(field, f -> {
+	private static BiConsumer<Object, Object> newSetter(Field field) {
+		try {
+			field.setAccessible(true);
+		} catch (RuntimeException e) {
+			throw new ReflectionException("Could not create accessor for " + field, e);
+		}
+		return (instance, value) -> {
 			try {
-				Method setter = instance.getClass().getDeclaredMethod("set" + capitalize(field.getName()));
-				return setter::invoke; 
+				field.set(instance, value);
+			} catch (Exception e) {
+				throw new ReflectionException(e);
 			}
-			catch (NoSuchMethodException e) {
-				field.setAccessible(true);
-				return field::set;
-			}
-		});
-		
+		};
+	}
+
+	private static Method findDeclaredMethod(Class<?> type, String name) {
 		try {
-			setterFunction.accept(instance, value);
-		} catch (Exception e) {
-			throw new ReflectionException(e);
+			return type.getDeclaredMethod(name);
+		} catch (NoSuchMethodException e) {
+			return null;
 		}
 	}
 
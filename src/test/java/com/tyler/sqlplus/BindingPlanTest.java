@@ -0,0 +1,96 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BindingPlanTest {
+
+	@Test
+	public void nullsAreBoundWithTheTypeOfTheirSignatureClassOrAsUntypedObjects() throws Exception {
+		ParameterBatchBuffer batches = new ParameterBatchBuffer(2);
+		batches.set(0, "a");
+		batches.set(1, null);
+		batches.finishPending();
+		batches.set(0, null);
+		batches.set(1, null);
+		batches.finishPending();
+
+		List<String> calls = new ArrayList<>();
+		PreparedStatement ps = recordingStatement(calls);
+		BindingPlan plan = new BindingPlan(batches.signature(), new ConversionRegistry());
+		plan.bind(ps, batches, 0);
+		plan.bind(ps, batches, 1);
+
+		assertEquals(Arrays.asList(
+			"setString[1, a]",
+			"setObject[2, null]",
+			"setNull[1, " + Types.VARCHAR + "]",
+			"setObject[2, null]"
+		), calls);
+	}
+
+	@Test
+	public void primitiveValuesAreBoundWithTheirPrimitiveSetters() throws Exception {
+		ParameterBatchBuffer batches = new ParameterBatchBuffer(4);
+		batches.set(0, 1);
+		batches.set(1, 2L);
+		batches.set(2, 3.5);
+		batches.set(3, true);
+		batches.finishPending();
+
+		List<String> calls = new ArrayList<>();
+		new BindingPlan(batches.signature(), new ConversionRegistry()).bind(recordingStatement(calls), batches, 0);
+		assertEquals(Arrays.asList("setInt[1, 1]", "setLong[2, 2]", "setDouble[3, 3.5]", "setBoolean[4, true]"), calls);
+	}
+
+	@Test
+	public void primitiveValuesWithRegisteredConvertersAreBoundByTheirConverter() throws Exception {
+		ParameterBatchBuffer batches = new ParameterBatchBuffer(1);
+		batches.set(0, 1);
+		batches.finishPending();
+
+		ConversionRegistry registry = new ConversionRegistry();
+		registry.registerConverter(Integer.class, new SQLConverter<Integer>() {
+
+			@Override
+			public Class<Integer> getConvertedClass() {
+				return Integer.class;
+			}
+
+			@Override
+			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void write(PreparedStatement ps, int parameterIndex, Integer value) throws SQLException {
+				ps.setString(parameterIndex, "#" + value);
+			}
+
+		});
+
+		List<String> calls = new ArrayList<>();
+		new BindingPlan(batches.signature(), registry).bind(recordingStatement(calls), batches, 0);
+		assertEquals(Arrays.asList("setString[1, #1]"), calls);
+	}
+
+	private static PreparedStatement recordingStatement(List<String> calls) {
+		return (PreparedStatement) Proxy.newProxyInstance(BindingPlanTest.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+			calls.add(method.getName() + Arrays.toString(args));
+			return null;
+		});
+	}
+
+}
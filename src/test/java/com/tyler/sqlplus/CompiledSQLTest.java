@@ -0,0 +1,81 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.exception.QueryStructureException;
+import org.junit.Test;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class CompiledSQLTest {
+
+	@Test
+	public void labelsAndQuestionMarksAreReplacedWithPlaceholders() throws Exception {
+		CompiledSQL compiled = CompiledSQL.compile("select * from address where city = ? and state = :state and zip = :zip");
+		assertEquals("select * from address where city = ? and state = ? and zip = ?", compiled.getFormattedSQL());
+		assertEquals(3, compiled.getParameterCount());
+		assertEquals(new Integer(1), compiled.getParamIndices().get("1"));
+		assertEquals(new Integer(2), compiled.getParamIndices().get("state"));
+		assertEquals(new Integer(3), compiled.getParamIndices().get("zip"));
+	}
+
+	@Test
+	public void sameSQLReturnsSameCompiledInstance() throws Exception {
+		String sql = "select * from employee where employee_id = :id";
+		assertSame(CompiledSQL.compile(sql), CompiledSQL.compile(new String(sql)));
+	}
+
+	@Test
+	public void bindingPlansAreCachedPerParameterTypeSignature() throws Exception {
+		CompiledSQL compiled = CompiledSQL.parse("insert into address (street, zip) values (:street, :zip)");
+		ConversionRegistry registry = ConversionRegistry.getShared();
+		BindingPlan plan = compiled.getBindingPlan(new Class<?>[]{ String.class, Integer.class }, registry);
+		assertSame(plan, compiled.getBindingPlan(new Class<?>[]{ String.class, Integer.class }, registry));
+		assertNotSame(plan, compiled.getBindingPlan(new Class<?>[]{ String.class, null }, registry));
+	}
+
+	@Test
+	public void duplicateParameterLabelsAreRejected() throws Exception {
+		String sql = "select * from address where city = :city and street = :city";
+		assertThrows(() -> CompiledSQL.compile(sql), QueryStructureException.class, "Duplicate parameter 'city' in query:\n" + sql);
+	}
+
+	@Test
+	public void markersInsideStringLiteralsAreIgnored() throws Exception {
+		CompiledSQL compiled = CompiledSQL.parse("select * from meeting where topic = 'Why? 10:30 sync' and office_id = :officeId and topic <> 'It''s :late?'");
+		assertEquals("select * from meeting where topic = 'Why? 10:30 sync' and office_id = ? and topic <> 'It''s :late?'", compiled.getFormattedSQL());
+		assertEquals(1, compiled.getParameterCount());
+		assertEquals(new Integer(1), compiled.getParamIndices().get("officeId"));
+	}
+
+	@Test
+	public void markersInsideQuotedIdentifiersAreIgnored() throws Exception {
+		CompiledSQL compiled = CompiledSQL.parse("select \"what?\" as \":label\", `x:y` from t where a = ?");
+		assertEquals("select \"what?\" as \":label\", `x:y` from t where a = ?", compiled.getFormattedSQL());
+		assertEquals(1, compiled.getParameterCount());
+		assertEquals(new Integer(1), compiled.getParamIndices().get("1"));
+	}
+
+	@Test
+	public void markersInsideCommentsAreIgnored() throws Exception {
+		CompiledSQL compiled = CompiledSQL.parse(
+			"select * from t -- where a = :a?\n" +
+			"where /* b = :b and ? */ c = :c"
+		);
+		assertEquals("select * from t -- where a = :a?\nwhere /* b = :b and ? */ c = ?", compiled.getFormattedSQL());
+		assertEquals(1, compiled.getParameterCount());
+		assertEquals(new Integer(1), compiled.getParamIndices().get("c"));
+	}
+
+	@Test
+	public void postgresCastsAreNotParameters() throws Exception {
+		CompiledSQL compiled = CompiledSQL.parse("select created::date, :id::int from t where name = :name::text");
+		assertEquals("select created::date, ?::int from t where name = ?::text", compiled.getFormattedSQL());
+		assertEquals(2, compiled.getParameterCount());
+		assertEquals(new Integer(1), compiled.getParamIndices().get("id"));
+		assertEquals(new Integer(2), compiled.getParamIndices().get("name"));
+	}
+
+}
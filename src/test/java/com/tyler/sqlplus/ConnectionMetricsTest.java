@@ -0,0 +1,98 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.ResourceLeakException;
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class ConnectionMetricsTest {
+
+	private static final String URL = "jdbc:h2:mem:connection_metrics_test;DB_CLOSE_DELAY=-1";
+
+	private final List<ResourceLeakException> leaks = new CopyOnWriteArrayList<>();
+
+	private PooledDataSource pool;
+	private SQLPlus sqlPlus;
+
+	@Before
+	public void setup() {
+		pool = new PooledDataSource(URL, "sa", "sa", 1);
+		sqlPlus = new SQLPlus(pool);
+		sqlPlus.setLeakListener(leaks::add);
+	}
+
+	@After
+	public void teardown() {
+		pool.close();
+	}
+
+	@Test
+	public void acquisitionsAndBorrowDurationsAreRecorded() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			sqlPlus.transact(session -> {
+				assertEquals(1, sqlPlus.getConnectionMetrics().getActiveConnections());
+				session.createQuery("select 1").fetch();
+			});
+		}
+		sqlPlus.batchExec("create table if not exists metrics_test (id int)");
+
+		ConnectionMetrics metrics = sqlPlus.getConnectionMetrics();
+		assertEquals(4, metrics.getAcquisitionCount());
+		assertEquals(0, metrics.getActiveConnections());
+		assertEquals(1, metrics.getIdleConnections());
+		assertTrue(metrics.getMaxAcquisitionNanos() > 0);
+		assertEquals(4, Arrays.stream(metrics.getBorrowDurationHistogram()).sum());
+		assertEquals(ConnectionMetrics.getBorrowDurationBucketMillis().length + 1, metrics.getBorrowDurationHistogram().length);
+		assertTrue(leaks.isEmpty());
+	}
+
+	@Test
+	public void acquisitionTimeoutsAreRecorded() throws Exception {
+		pool.setConnectionTimeoutMillis(10);
+		try (Connection held = pool.getConnection()) {
+			assertThrows(() -> sqlPlus.transact(session -> {}), SQLRuntimeException.class);
+		}
+		assertEquals(1, sqlPlus.getConnectionMetrics().getTimeoutCount());
+		assertEquals(0, sqlPlus.getConnectionMetrics().getAcquisitionCount());
+	}
+
+	@Test
+	public void connectionsHeldPastTheThresholdAreReportedWithTheAcquiringStack() throws Exception {
+		sqlPlus.setLeakDetectionThresholdMillis(20);
+		sqlPlus.transact(session -> Thread.sleep(200));
+		sqlPlus.transact(session -> {});
+
+		assertEquals(1, leaks.size());
+		assertTrue(leaks.get(0).getMessage().contains("has been held for more than 20ms"));
+		assertTrue(Arrays.stream(leaks.get(0).getStackTrace()).anyMatch(frame -> frame.getMethodName().equals("connectionsHeldPastTheThresholdAreReportedWithTheAcquiringStack")));
+		assertEquals(1, sqlPlus.getConnectionMetrics().getLeakCount());
+	}
+
+	@Test
+	public void streamsWhichEscapeTheirSessionAreReported() throws Exception {
+		sqlPlus.transactAndReturn(session -> session.createQuery("select 1").stream());
+		assertEquals(1, leaks.size());
+		assertTrue(leaks.get(0).getMessage().contains("Enable leak detection"));
+
+		sqlPlus.setLeakDetectionThresholdMillis(60_000);
+		sqlPlus.transactAndReturn(session -> session.createQuery("select 1").stream());
+		assertEquals(2, leaks.size());
+		assertTrue(Arrays.stream(leaks.get(1).getStackTrace()).anyMatch(frame -> frame.getMethodName().equals("stream")));
+		assertEquals(2, sqlPlus.getConnectionMetrics().getEscapedStreamCount());
+
+		// Exhausted streams are not reported
+		sqlPlus.transact(session -> session.createQuery("select 1").stream().count());
+		assertEquals(2, leaks.size());
+	}
+
+}
@@ -415,4 +415,29 @@ public class LazyLoadTest extends DatabaseTest {
 
 	}
 
+	@Test
+	public void proxiesForSameEntityTypeShareGeneratedClassButLoadIndependently() throws Exception {
+
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into employee(type, name, hired, salary, address_id) values ('SALARY', 'tester-1', '2015-01-01', 20500, 1)",
+			"insert into employee(type, name, hired, salary, address_id) values ('HOURLY', 'tester-2', '2015-01-01', 10500, 2)"
+		);
+
+		db.getSQLPlus().transact(conn -> {
+
+			List<Address> addresses =
+				conn.createQuery("select address_id as \"addressId\", street as \"street\", state as \"state\", city as \"city\", zip as \"zip\" from address a order by address_id")
+				    .fetchAs(Address.class);
+
+			assertEquals(2, addresses.size());
+			assertSame(addresses.get(0).getClass(), addresses.get(1).getClass());
+
+			assertEquals("tester-1", addresses.get(0).getEmployee().name);
+			assertEquals("tester-2", addresses.get(1).getEmployee().name);
+		});
+
+	}
+
 }
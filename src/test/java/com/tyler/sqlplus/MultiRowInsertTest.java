@@ -0,0 +1,39 @@
+package com.tyler.sqlplus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MultiRowInsertTest {
+
+	@Test
+	public void valuesRowIsRepeatedForEachRow() throws Exception {
+		MultiRowInsert insert = MultiRowInsert.parse("insert into address (street, city) values (?, lower(?));", 2);
+		assertEquals("insert into address (street, city) values (?, lower(?))", insert.getSQL(1));
+		assertEquals("insert into address (street, city) values (?, lower(?)), (?, lower(?)), (?, lower(?))", insert.getSQL(3));
+		assertSame(insert.getSQL(3), insert.getSQL(3));
+	}
+
+	@Test
+	public void keywordsInQuotesAndCommentsAreIgnored() throws Exception {
+		MultiRowInsert insert = MultiRowInsert.parse("/* values (?) */ INSERT INTO \"values\" (a, b) VALUES (?, 'x)?') -- trailing", 1);
+		assertEquals("/* values (?) */ INSERT INTO \"values\" (a, b) VALUES (?, 'x)?'), (?, 'x)?')", insert.getSQL(2));
+	}
+
+	@Test
+	public void statementsWhichCannotBeRepeatedAreNotRecognized() throws Exception {
+		assertNull(MultiRowInsert.parse("update address set street = ?", 1));
+		assertNull(MultiRowInsert.parse("insert into address (street) select street from address where city = ?", 1));
+		assertNull(MultiRowInsert.parse("insert into address (street) values (?), (?)", 2));
+		assertNull(MultiRowInsert.parse("insert into address (street, zip) values (?, 1) on duplicate key update street = ?", 2));
+		assertNull(MultiRowInsert.parse("insert into address (street) values ('a')", 0));
+	}
+
+	@Test
+	public void rowsPerStatementAreLimitedByParameterCount() throws Exception {
+		assertEquals(MultiRowInsert.MAX_PARAMETERS_PER_STATEMENT / 3, MultiRowInsert.parse("insert into t values (?, ?, ?)", 3).maxRowsPerStatement());
+	}
+
+}
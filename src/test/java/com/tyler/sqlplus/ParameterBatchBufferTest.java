@@ -0,0 +1,83 @@
+package com.tyler.sqlplus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParameterBatchBufferTest {
+
+	@Test
+	public void primitiveValuesAndNullsAreReadBackBoxed() throws Exception {
+		ParameterBatchBuffer buffer = new ParameterBatchBuffer(4);
+		for (int i = 0; i < 200; i++) {
+			boolean isNull = i % 7 == 0;
+			buffer.set(0, isNull ? null : i);
+			buffer.set(1, isNull ? null : (long) i);
+			buffer.set(2, isNull ? null : i / 2.0);
+			buffer.set(3, isNull ? null : i % 2 == 0);
+			buffer.finishPending();
+		}
+
+		assertEquals(200, buffer.size());
+		for (int i = 0; i < 200; i++) {
+			boolean isNull = i % 7 == 0;
+			assertEquals(isNull ? null : i, buffer.get(i, 0));
+			assertEquals(isNull ? null : (long) i, buffer.get(i, 1));
+			assertEquals(isNull ? null : i / 2.0, buffer.get(i, 2));
+			assertEquals(isNull ? null : i % 2 == 0, buffer.get(i, 3));
+		}
+		assertArrayEquals(new Class<?>[]{ Integer.class, Long.class, Double.class, Boolean.class }, buffer.signature());
+	}
+
+	@Test
+	public void columnsWithMixedClassesKeepAllValuesAndHaveNoSignatureClass() throws Exception {
+		ParameterBatchBuffer buffer = new ParameterBatchBuffer(2);
+		Object[][] rows = { { null, "a" }, { 1, "b" }, { 2L, null }, { "three", 3 } };
+		for (Object[] row : rows) {
+			buffer.set(0, row[0]);
+			buffer.set(1, row[1]);
+			buffer.finishPending();
+		}
+
+		for (int i = 0; i < rows.length; i++) {
+			assertEquals(rows[i][0], buffer.get(i, 0));
+			assertEquals(rows[i][1], buffer.get(i, 1));
+		}
+		assertArrayEquals(new Class<?>[]{ null, null }, buffer.signature());
+	}
+
+	@Test
+	public void columnsOfOnlyNullsHaveNoSignatureClass() throws Exception {
+		ParameterBatchBuffer buffer = new ParameterBatchBuffer(1);
+		buffer.set(0, null);
+		buffer.finishPending();
+		assertNull(buffer.get(0, 0));
+		assertArrayEquals(new Class<?>[]{ null }, buffer.signature());
+	}
+
+	@Test
+	public void pendingBatchIsTrackedUntilFinished() throws Exception {
+		ParameterBatchBuffer buffer = new ParameterBatchBuffer(2);
+		assertFalse(buffer.hasPending());
+
+		buffer.set(1, "b");
+		assertTrue(buffer.hasPending());
+		assertFalse(buffer.isSet(0));
+		assertTrue(buffer.isSet(1));
+
+		List<Object> values = new ArrayList<>();
+		buffer.collectValues(values);
+		assertEquals(Arrays.asList("b"), values);
+
+		buffer.set(0, "a");
+		buffer.finishPending();
+		assertFalse(buffer.hasPending());
+		assertFalse(buffer.isSet(1));
+		assertEquals(1, buffer.size());
+	}
+
+}
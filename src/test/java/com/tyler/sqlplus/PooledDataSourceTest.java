@@ -0,0 +1,240 @@
+package com.tyler.sqlplus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class PooledDataSourceTest {
+
+	private static final String URL = "jdbc:h2:mem:pooled_data_source_test;DB_CLOSE_DELAY=-1";
+
+	/** Physical connections opened by the pool under test */
+	private final List<Connection> opened = new ArrayList<>();
+
+	/** Number of calls made to the physical connections, by method name */
+	private final Map<String, AtomicInteger> physicalCalls = new ConcurrentHashMap<>();
+
+	private final BasicDataSource unpooled = new BasicDataSource(URL, "sa", "sa") {
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection physical = super.getConnection();
+			Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				physicalCalls.computeIfAbsent(method.getName(), name -> new AtomicInteger()).incrementAndGet();
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			});
+			synchronized (opened) {
+				opened.add(connection);
+			}
+			return connection;
+		}
+
+	};
+
+	private PooledDataSource pool;
+
+	@Before
+	public void setup() throws Exception {
+		try (Connection conn = unpooled.getConnection()) {
+			conn.createStatement().executeUpdate("create table if not exists widget (name varchar(20))");
+			conn.createStatement().executeUpdate("delete from widget");
+		}
+		opened.clear();
+		physicalCalls.clear();
+		pool = new PooledDataSource(unpooled, 3);
+	}
+
+	@After
+	public void teardown() {
+		pool.close();
+	}
+
+	@Test
+	public void connectionsAreReusedAfterBeingReturned() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			try (Connection conn = pool.getConnection()) {
+				conn.createStatement().executeQuery("select 1").close();
+			}
+		}
+		assertEquals(1, opened.size());
+		assertEquals(1, pool.getTotalConnections());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void borrowersWaitForAConnectionWhenThePoolIsExhausted() throws Exception {
+		pool.setConnectionTimeoutMillis(50);
+		List<Connection> held = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			held.add(pool.getConnection());
+		}
+		assertThrows(pool::getConnection, SQLTimeoutException.class);
+		held.get(0).close();
+		pool.getConnection().close();
+		assertEquals(3, opened.size());
+	}
+
+	@Test
+	public void returnedConnectionsAreRolledBackAndRestored() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			conn.setAutoCommit(false);
+			conn.setReadOnly(false);
+			conn.createStatement().executeUpdate("insert into widget values ('uncommitted')");
+		}
+		try (Connection conn = pool.getConnection()) {
+			assertTrue(conn.getAutoCommit());
+			try (ResultSet rs = conn.createStatement().executeQuery("select count(*) from widget")) {
+				rs.next();
+				assertEquals(0, rs.getInt(1));
+			}
+			assertTrue(opened.get(0).getAutoCommit());
+		}
+		assertEquals(1, opened.size());
+	}
+
+	@Test
+	public void settingsAreOnlySentToTheDriverWhenTheyDifferFromThePhysicalConnection() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			try (Connection conn = pool.getConnection()) {
+				conn.setAutoCommit(false);
+				conn.setReadOnly(true);
+				assertTrue(conn.isReadOnly());
+				conn.createStatement().executeQuery("select 1").close();
+				conn.commit();
+			}
+		}
+		assertEquals(1, physicalCalls.get("setAutoCommit").get());
+		assertEquals(1, physicalCalls.get("setReadOnly").get());
+
+		try (Connection conn = pool.getConnection()) {
+			assertFalse(conn.isReadOnly());
+			assertEquals(1, physicalCalls.get("setReadOnly").get());
+			conn.createStatement().executeQuery("select 1").close();
+			assertFalse(opened.get(0).isReadOnly());
+			assertTrue(opened.get(0).getAutoCommit());
+		}
+	}
+
+	@Test
+	public void unusedCheckoutsAreNotRolledBack() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			conn.setAutoCommit(false);
+			conn.createStatement().executeQuery("select 1").close();
+		}
+		assertEquals(1, physicalCalls.get("rollback").get());
+		try (Connection conn = pool.getConnection()) {
+			conn.setAutoCommit(false);
+		}
+		assertEquals(1, physicalCalls.get("rollback").get());
+	}
+
+	@Test
+	public void closedHandlesCannotBeUsed() throws Exception {
+		Connection conn = pool.getConnection();
+		conn.close();
+		assertTrue(conn.isClosed());
+		assertThrows(conn::createStatement, SQLException.class, "Connection has been returned to the pool");
+		assertFalse(opened.get(0).isClosed());
+	}
+
+	@Test
+	public void connectionsWithUnrestorableStateAreNotReused() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			conn.setSchema("PUBLIC");
+		}
+		pool.getConnection().close();
+		assertEquals(2, opened.size());
+		assertTrue(opened.get(0).isClosed());
+	}
+
+	@Test
+	public void connectionsPastTheirMaxLifetimeAreReplaced() throws Exception {
+		pool.setMaxLifetimeMillis(1);
+		pool.getConnection().close();
+		Thread.sleep(5);
+		pool.getConnection().close();
+		assertEquals(2, opened.size());
+		assertTrue(opened.get(0).isClosed());
+	}
+
+	@Test
+	public void brokenConnectionsAreReplacedOnValidation() throws Exception {
+		pool.setValidationBypassMillis(0);
+		pool.getConnection().close();
+		opened.get(0).close();
+		Thread.sleep(2);
+		try (Connection conn = pool.getConnection()) {
+			conn.createStatement().executeQuery("select 1").close();
+		}
+		assertEquals(2, opened.size());
+	}
+
+	@Test
+	public void poolSizeIsBoundedAcrossThreads() throws Exception {
+		AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 200; i++) {
+					try (Connection conn = pool.getConnection()) {
+						conn.createStatement().executeQuery("select 1").close();
+					} catch (SQLException e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, failures.get());
+		assertTrue(opened.size() <= 3);
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void sqlPlusPoolsConnectionsWhenGivenConnectionDetails() throws Exception {
+		SQLPlus sqlPlus = new SQLPlus(URL, "sa", "sa");
+		assertTrue(sqlPlus.getDataSource() instanceof PooledDataSource);
+		sqlPlus.transact(session -> session.createQuery("insert into widget values ('committed')").executeUpdate());
+		assertEquals(new Integer(1), sqlPlus.transactAndReturn(session -> session.createQuery("select count(*) from widget").getUniqueResultAs(Integer.class)));
+		assertEquals(1, ((PooledDataSource) sqlPlus.getDataSource()).getTotalConnections());
+		((PooledDataSource) sqlPlus.getDataSource()).close();
+	}
+
+	@Test
+	public void sqlPlusQueriesDoNotBeginOrCommitTransactions() throws Exception {
+		SQLPlus sqlPlus = new SQLPlus(pool);
+		sqlPlus.transact(session -> session.createQuery("insert into widget values ('committed')").executeUpdate());
+		physicalCalls.clear();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(new Integer(1), sqlPlus.query(session -> session.createQuery("select count(*) from widget").getUniqueResultAs(Integer.class)));
+		}
+		assertEquals(1, physicalCalls.get("setAutoCommit").get()); // Once, to leave the transaction mode of the insert
+		assertEquals(1, physicalCalls.get("setReadOnly").get());
+		assertNull(physicalCalls.get("commit"));
+		assertNull(physicalCalls.get("rollback"));
+	}
+
+}
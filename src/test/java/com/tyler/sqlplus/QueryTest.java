@@ -4,18 +4,33 @@ import com.tyler.sqlplus.base.DatabaseTest;
 import com.tyler.sqlplus.base.AbstractDatabase.Address;
 import com.tyler.sqlplus.base.AbstractDatabase.Employee;
 import com.tyler.sqlplus.base.AbstractDatabase.Employee.Type;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
 import com.tyler.sqlplus.exception.QueryStructureException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
 import static org.junit.Assert.*;
@@ -33,6 +48,39 @@ public class QueryTest extends DatabaseTest {
 		});
 	}
 	
+	enum State { MINNESOTA }
+
+	@Test
+	public void convertersRegisteredBetweenExecutionsAreUsedToBindParameters() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		String sql = "select * from address where state = :state";
+		db.getSQLPlus().transact(conn -> {
+			assertEquals(0, conn.createQuery(sql).setParameter("state", State.MINNESOTA).fetchAs(Address.class).size());
+		});
+
+		ConversionRegistry.registerDefaultConverter(State.class, new SQLConverter<State>() {
+
+			@Override
+			public Class<State> getConvertedClass() {
+				return State.class;
+			}
+
+			@Override
+			public State read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void write(PreparedStatement ps, int parameterIndex, State state) throws SQLException {
+				ps.setString(parameterIndex, "MN");
+			}
+
+		});
+		db.getSQLPlus().transact(conn -> {
+			assertEquals(1, conn.createQuery(sql).setParameter("state", State.MINNESOTA).fetchAs(Address.class).size());
+		});
+	}
+
 	@Test
 	public void errorThrownIfParamValueNotSet() throws Exception {
 		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
@@ -239,6 +287,326 @@ public class QueryTest extends DatabaseTest {
 		assertEquals(6, numBatchesSeen[0]);
 	}
 	
+	@Test
+	public void parallelStreamsAreSplitIntoChunksOfMappedRowsInOrder() throws Exception {
+
+		int numAddress = 1000;
+		List<String> insertSqls = new ArrayList<>();
+		List<String> expectStreets = new ArrayList<>();
+		for (int i = 1; i <= numAddress; i++) {
+			insertSqls.add("insert into address (address_id, street, city, state, zip) values (" + i + ", 'street" + i + "', 'city', 'state', 'zip')");
+			expectStreets.add("street" + i);
+		}
+		db.getSQLPlus().batchExec(insertSqls.stream().toArray(String[]::new));
+
+		db.getSQLPlus().transact(session -> {
+
+			Spliterator<String> rows = session.createQuery("select street from address order by address_id").streamAs(String.class).spliterator();
+			Spliterator<String> firstChunk = rows.trySplit();
+			assertEquals(256, firstChunk.estimateSize());
+			List<String> streets = new ArrayList<>();
+			firstChunk.forEachRemaining(streets::add);
+			assertEquals(512, rows.trySplit().estimateSize());
+			rows.forEachRemaining(streets::add);
+			assertEquals(expectStreets.subList(0, 256), streets.subList(0, 256));
+			assertEquals(numAddress - 512, streets.size());
+
+			List<String> parallelStreets = session.createQuery("select street from address order by address_id")
+			                                      .streamAs(String.class)
+			                                      .parallel()
+			                                      .map(String::toUpperCase)
+			                                      .collect(Collectors.toList());
+			assertEquals(expectStreets.stream().map(String::toUpperCase).collect(Collectors.toList()), parallelStreets);
+		});
+	}
+
+	@Test
+	public void prefetchedResultsMatchThoseReadOnTheConsumingThread() throws Exception {
+
+		int numAddress = 50;
+		List<String> insertSqls = new ArrayList<>();
+		for (int i = 1; i <= numAddress; i++) {
+			insertSqls.add("insert into address (address_id, street, city, state, zip) values (" + i + ", 'street" + i + "', 'city', 'state', 'zip')");
+		}
+		db.getSQLPlus().batchExec(insertSqls.stream().toArray(String[]::new));
+
+		db.getSQLPlus().transact(session -> {
+
+			String sql = "select address_id as \"addressId\", street as \"street\" from address order by address_id";
+			List<Address> expect = session.createQuery(sql).fetchAs(Address.class);
+			List<Address> prefetched = session.createQuery(sql).setPrefetchSize(8).fetchAs(Address.class);
+			assertEquals(numAddress, prefetched.size());
+			for (int i = 0; i < numAddress; i++) {
+				assertEquals(expect.get(i).addressId, prefetched.get(i).addressId);
+				assertEquals(expect.get(i).street, prefetched.get(i).street);
+			}
+
+			List<Integer> batchSizes = new ArrayList<>();
+			session.createQuery(sql).setPrefetchSize(4).batchProcess(Address.class, 20, batch -> batchSizes.add(batch.size()));
+			assertEquals(Arrays.asList(20, 20, 10), batchSizes);
+		});
+	}
+
+	@Test
+	public void closingAPrefetchedStreamEarlyStopsTheReader() throws Exception {
+
+		int numAddress = 50;
+		List<String> insertSqls = new ArrayList<>();
+		for (int i = 1; i <= numAddress; i++) {
+			insertSqls.add("insert into address (address_id, street, city, state, zip) values (" + i + ", 'street" + i + "', 'city', 'state', 'zip')");
+		}
+		db.getSQLPlus().batchExec(insertSqls.stream().toArray(String[]::new));
+
+		db.getSQLPlus().transact(session -> {
+			Query query = session.createQuery("select street from address order by address_id").setPrefetchSize(2);
+			try (Stream<String> streets = query.streamAs(String.class)) {
+				assertEquals(Arrays.asList("street1", "street2", "street3"), streets.limit(3).collect(Collectors.toList()));
+			}
+			assertEquals(new Integer(numAddress), session.createQuery("select count(*) from address").getUniqueResultAs(Integer.class));
+		});
+	}
+
+	@Test
+	public void shortCircuitingTerminalOperationsReleaseTheStatement() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Main Street', 'Bakersfield', 'CA', '54321')"
+		);
+		db.getSQLPlus().transact(session -> {
+			String sql = "select street from address order by address_id";
+			assertEquals("Maple Street", session.createQuery(sql).streamAs(String.class).findFirst().get());
+			assertEquals(Arrays.asList("Maple Street", "Elm Street"), session.createQuery(sql).streamAs(String.class).limit(2).collect(Collectors.toList()));
+			assertTrue(session.createQuery(sql).streamAs(String.class).anyMatch("Maple Street"::equals));
+			ResultSet first = session.createQuery(sql).stream().findFirst().get();
+			assertTrue(first.isClosed());
+			assertTrue(session.createQuery(sql).streamAs(String.class).mapToInt(String::length).anyMatch(length -> length == 12));
+			assertEquals(12L, session.createQuery(sql).streamAs(String.class).mapToLong(String::length).findFirst().getAsLong());
+			assertEquals(10.0, session.createQuery(sql).streamAs(String.class).mapToDouble(String::length).skip(1).findFirst().getAsDouble(), 0);
+			assertEquals(Integer.valueOf(12), session.createQuery(sql).streamAs(String.class).mapToInt(String::length).boxed().findFirst().get());
+
+			// Each statement was released as its terminal operation returned, so none had to be prepared again
+			StatementCache cache = session.getStatementCache();
+			assertEquals(1, cache.getMissCount());
+			assertEquals(7, cache.getHitCount());
+		});
+	}
+
+	@Test
+	public void streamsLeftOpenAreClosedWithTheirSession() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Main Street', 'Bakersfield', 'CA', '54321')"
+		);
+		SQLPlus sqlPlus = new SQLPlus(db.getUrl(), db.getUsername(), db.getPassword());
+		sqlPlus.setLeakListener(leak -> {});
+
+		Iterator<String> streets = sqlPlus.transactAndReturn(session -> {
+			Iterator<String> iterator = session.createQuery("select street from address order by address_id").streamAs(String.class).iterator();
+			assertEquals("Maple Street", iterator.next());
+			return iterator;
+		});
+		assertFalse(streets.hasNext());
+
+		// A prefetch reader blocked on a full buffer is stopped rather than left waiting for a consumer
+		Iterator<String> prefetched = sqlPlus.transactAndReturn(session -> {
+			return session.createQuery("select street from address order by address_id").setPrefetchSize(1).streamAs(String.class).iterator();
+		});
+		assertFalse(prefetched.hasNext());
+		assertEquals(2, sqlPlus.getConnectionMetrics().getEscapedStreamCount());
+	}
+
+	@Test
+	public void streamsLeftOpenAreClosedBeforeTheTransactionCommits() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		AtomicReference<ResultSet> openResults = new AtomicReference<>();
+		List<Boolean> resultsClosedAtCommit = new ArrayList<>();
+		SQLPlus sqlPlus = new SQLPlus(() -> {
+			Connection physical;
+			try {
+				physical = DriverManager.getConnection(db.getUrl(), db.getUsername(), db.getPassword());
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				if (method.getName().equals("commit")) {
+					resultsClosedAtCommit.add(openResults.get().isClosed());
+				}
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			});
+		});
+		sqlPlus.setLeakListener(leak -> {});
+
+		sqlPlus.transact(session -> {
+			Iterator<ResultSet> rows = session.createQuery("select street from address order by address_id").stream().iterator();
+			openResults.set(rows.next());
+		});
+		assertEquals(Arrays.asList(true), resultsClosedAtCommit);
+	}
+
+	@Test
+	public void streamsWhichFailToOpenReleaseTheirStatement() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		AtomicInteger preparedStatements = new AtomicInteger();
+		AtomicBoolean failQuery = new AtomicBoolean();
+		SQLPlus sqlPlus = new SQLPlus(() -> {
+			Connection physical;
+			try {
+				physical = DriverManager.getConnection(db.getUrl(), db.getUsername(), db.getPassword());
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				Object result = invoke(method, physical, args);
+				if (!method.getName().equals("prepareStatement")) {
+					return result;
+				}
+				preparedStatements.incrementAndGet();
+				PreparedStatement ps = (PreparedStatement) result;
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class }, (psProxy, psMethod, psArgs) -> {
+					if (psMethod.getName().equals("executeQuery") && failQuery.get()) {
+						throw new IllegalStateException("Driver failure");
+					}
+					return invoke(psMethod, ps, psArgs);
+				});
+			});
+		});
+
+		String sql = "select street from address";
+		sqlPlus.transact(session -> {
+			failQuery.set(true);
+			assertThrows(() -> session.createQuery(sql).streamAs(String.class), IllegalStateException.class, "Driver failure");
+			assertThrows(() -> session.createQuery(sql).stream(), IllegalStateException.class, "Driver failure");
+
+			failQuery.set(false);
+			assertEquals(Arrays.asList("Maple Street"), session.createQuery(sql).fetchAs(String.class));
+			assertEquals(1, preparedStatements.get());
+		});
+	}
+
+	private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@Test
+	public void transactionsOnAConnectionLeftReadOnlyByAQueryCanWrite() throws Exception {
+		Connection physical = DriverManager.getConnection(db.getUrl(), db.getUsername(), db.getPassword());
+		AtomicBoolean readOnly = new AtomicBoolean();
+		try {
+			// A connection supplier which hands out the same connection every time, without resetting it. The read-only flag
+			// is tracked here, since some drivers only treat it as a hint and always report false
+			SQLPlus sqlPlus = new SQLPlus(() -> (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "close":
+						return null;
+					case "setReadOnly":
+						readOnly.set((Boolean) args[0]);
+						return null;
+					case "isReadOnly":
+						return readOnly.get();
+				}
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}));
+
+			sqlPlus.query(session -> session.createQuery("select * from address").fetch());
+			assertTrue(readOnly.get());
+			sqlPlus.transact(session -> {
+				assertFalse(session.conn.isReadOnly());
+				session.createQuery("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')").executeUpdate();
+			});
+			assertEquals(1, db.query("select * from address").length);
+		} finally {
+			physical.close();
+		}
+	}
+
+	@Test
+	public void statementHintsMustBeValid() throws Exception {
+		db.getSQLPlus().transact(session -> {
+			Query query = session.createQuery("select * from address");
+			assertThrows(() -> query.setFetchSize(-1), IllegalArgumentException.class, "Fetch size cannot be negative");
+			assertThrows(() -> query.setMaxRows(-1), IllegalArgumentException.class, "Max rows cannot be negative");
+			assertThrows(() -> query.setQueryTimeout(-1), IllegalArgumentException.class, "Query timeout cannot be negative");
+			assertThrows(() -> query.setResultSetType(ResultSet.CONCUR_READ_ONLY, ResultSet.TYPE_FORWARD_ONLY), IllegalArgumentException.class);
+			query.setFetchSize(Integer.MIN_VALUE); // Requests row-by-row streaming from MySQL
+		});
+	}
+
+	@Test
+	public void streamedResultsAreLimitedToMaxRows() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Main Street', 'Bakersfield', 'CA', '54321')"
+		);
+		List<String> streets = db.getSQLPlus().transactAndReturn(session -> {
+			return session.createQuery("select street from address order by address_id")
+			              .setFetchSize(1)
+			              .setMaxRows(2)
+			              .setQueryTimeout(5)
+			              .streamAs(String.class)
+			              .collect(Collectors.toList());
+		});
+		assertEquals(Arrays.asList("Maple Street", "Elm Street"), streets);
+	}
+
+	@Test
+	public void scrollableResultSetsCanBeRequested() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		db.getSQLPlus().transact(session -> {
+			try (Stream<ResultSet> rows = session.createQuery("select street from address")
+			                                     .setResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+			                                     .stream()) {
+				ResultSet rs = rows.iterator().next();
+				assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, rs.getType());
+				assertTrue(rs.first());
+			}
+		});
+	}
+
+	@Test
+	public void prefetchSizeCannotBeNegative() throws Exception {
+		db.getSQLPlus().transact(session -> assertThrows(
+			() -> session.createQuery("select * from address").setPrefetchSize(-1),
+			IllegalArgumentException.class,
+			"Prefetch size cannot be negative"
+		));
+	}
+
+	@Test
+	public void rawResultStreamsDoNotSkipRowsWhenCheckedForMoreRowsRepeatedly() throws Exception {
+		db.batch(
+			"insert into address (address_id, street, city, state, zip) values (1, 'Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (address_id, street, city, state, zip) values (2, 'Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		db.getSQLPlus().transact(session -> {
+			Iterator<ResultSet> rows = session.createQuery("select street from address order by address_id").stream().iterator();
+			assertTrue(rows.hasNext());
+			assertTrue(rows.hasNext());
+			assertEquals("Maple Street", rows.next().getString(1));
+			assertTrue(rows.hasNext());
+			assertEquals("Elm Street", rows.next().getString(1));
+			assertFalse(rows.hasNext());
+			assertFalse(rows.hasNext());
+		});
+	}
+
 	@Test
 	public void fieldsNotSelectedRemainNullInResultingPOJO() throws Exception {
 		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
@@ -366,6 +734,28 @@ public class QueryTest extends DatabaseTest {
 
 	}
 
+	@Test
+	public void partiallyBoundObjectsCanBeBatched() throws Exception {
+
+		db.getSQLPlus().transact(conn -> {
+			Query query = conn.createQuery("insert into employee(type, name, hired, salary) values (:type, :name, :hired, :salary)");
+			for (int i = 1; i <= 3; i++) {
+				EmployeePartial employeePartial = new EmployeePartial();
+				employeePartial.hired = LocalDate.of(2015, 1, i);
+				employeePartial.name = "tester-" + i;
+				query.bind(employeePartial).setParameter("type", Type.HOURLY).setParameter("salary", i * 1000).finishBatch();
+			}
+			query.executeUpdate();
+		});
+
+		String[][] expect = {
+			{ "HOURLY", "tester-1", "2015-01-01", "1000" },
+			{ "HOURLY", "tester-2", "2015-01-02", "2000" },
+			{ "HOURLY", "tester-3", "2015-01-03", "3000" }
+		};
+		assertArrayEquals(expect, db.query("select type, name, hired, salary from employee order by employee_id"));
+	}
+
 	@Test
 	public void nullParamsInBindingObjectSetsValuesToNull() throws Exception {
 		
@@ -493,4 +883,78 @@ public class QueryTest extends DatabaseTest {
 		assertArrayEquals(expect, actual);
 	}
 
+	@Test
+	public void batchesWithNullsAndMixedParameterTypesAreBound() throws Exception {
+
+		db.getSQLPlus().transact(sess -> {
+			sess.createQuery("insert into employee(type, name, salary, hired, address_id) values (:type, :name, :salary, :hired, :addressId)")
+			    .setParameter("type", Type.SALARY).setParameter("name", "tester-1").setParameter("salary", 20500)
+			    .setParameter("hired", null).setParameter("addressId", null).finishBatch()
+			    .setParameter("type", "HOURLY").setParameter("name", "tester-2").setParameter("salary", null)
+			    .setParameter("hired", LocalDate.of(2015, 1, 1)).setParameter("addressId", 1L).finishBatch()
+			    .setParameter("type", Type.HOURLY).setParameter("name", "tester-3").setParameter("salary", 30000L)
+			    .setParameter("hired", null).setParameter("addressId", 2).finishBatch()
+			    .executeUpdate();
+		});
+
+		String[][] expect = {
+			{ "SALARY", "tester-1", "20500", null, null },
+			{ "HOURLY", "tester-2", null, "2015-01-01", "1" },
+			{ "HOURLY", "tester-3", "30000", null, "2" }
+		};
+		assertArrayEquals(expect, db.query("select type, name, salary, hired, address_id from employee order by employee_id"));
+	}
+
+	@Test
+	public void batchesAreFlushedInChunksAndUpdateCountsAggregated() throws Exception {
+
+		int[] affectedRows = db.getSQLPlus().transactAndReturn(sess -> {
+			Query q = sess.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)").setBatchFlushSize(2);
+			for (int i = 1; i <= 5; i++) {
+				q.setParameter("street", "street-" + i).setParameter("city", "city").setParameter("state", "state").setParameter("zip", "zip").finishBatch();
+				if (i == 2) {
+					// The first chunk is already visible to this session before the query is executed
+					assertEquals(2, sess.createQuery("select count(*) from address").getUniqueResultAs(Integer.class).intValue());
+				}
+			}
+			return q.executeUpdate();
+		});
+
+		assertArrayEquals(new int[]{ 1, 1, 1, 1, 1 }, affectedRows);
+		assertEquals(5, db.query("select street from address").length);
+	}
+
+	@Test
+	public void generatedKeysOfFlushedBatchesAreAggregated() throws Exception {
+
+		List<Integer> keys = db.getSQLPlus().transactAndReturn(sess -> {
+			Query q = sess.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)").setBatchFlushSize(2, Integer.class);
+			for (int i = 1; i <= 4; i++) {
+				q.setParameter("street", "street-" + i).setParameter("city", "city").setParameter("state", "state").setParameter("zip", "zip").finishBatch();
+			}
+			return q.executeUpdate(Integer.class);
+		});
+
+		assertEquals(Arrays.asList(1, 2, 3, 4), keys);
+	}
+
+	@Test
+	public void batchedInsertsCanBeRewrittenAsMultiRowInserts() throws Exception {
+
+		int[] affectedRows = db.getSQLPlus().transactAndReturn(sess -> {
+			Query q = sess.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)").setMultiRowInsertSize(4);
+			for (int i = 1; i <= 11; i++) {
+				q.setParameter("street", "street-" + i).setParameter("city", i % 2 == 0 ? null : "city").setParameter("state", "state").setParameter("zip", "zip").finishBatch();
+			}
+			return q.executeUpdate();
+		});
+
+		assertArrayEquals(new int[]{ 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 }, affectedRows);
+		String[][] streets = db.query("select street, city from address order by address_id");
+		assertEquals(11, streets.length);
+		for (int i = 1; i <= 11; i++) {
+			assertArrayEquals(new String[]{ "street-" + i, i % 2 == 0 ? null : "city" }, streets[i - 1]);
+		}
+	}
+
 }
@@ -0,0 +1,180 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.base.DatabaseTest;
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class StatementCacheTest extends DatabaseTest {
+
+	@Test
+	public void repeatedUpdatesReuseCachedStatement() throws Exception {
+		db.getSQLPlus().transact(session -> {
+			for (int i = 0; i < 5; i++) {
+				session.createQuery("insert into address (street, city, state, zip) values (:street, 'Anytown', 'MN', '12345')")
+				       .setParameter("street", "Street " + i)
+				       .executeUpdate();
+			}
+			StatementCache cache = session.getStatementCache();
+			assertEquals(1, cache.getMissCount());
+			assertEquals(4, cache.getHitCount());
+			assertEquals(1, cache.size());
+		});
+		assertEquals("5", db.query("select count(*) from address")[0][0]);
+	}
+
+	@Test
+	public void generatedKeyFlagIsPartOfCacheKey() throws Exception {
+		db.getSQLPlus().transact(session -> {
+			String sql = "insert into address (street, city, state, zip) values ('Maple Street', 'Anytown', 'MN', '12345')";
+			session.createQuery(sql).executeUpdate();
+			List<Integer> keys = session.createQuery(sql).executeUpdate(Integer.class);
+			assertEquals(1, keys.size());
+			assertEquals(2, session.getStatementCache().getMissCount());
+		});
+	}
+
+	@Test
+	public void statementHintsAreResetForTheNextBorrower() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		db.getSQLPlus().transact(session -> {
+			String sql = "select street from address";
+			assertEquals(1, session.createQuery(sql).setMaxRows(1).fetch().size());
+			assertEquals(2, session.createQuery(sql).fetch().size());
+			assertEquals(1, session.getStatementCache().getHitCount());
+		});
+	}
+
+	@Test
+	public void resultSetTypeIsPartOfCacheKey() throws Exception {
+		db.getSQLPlus().transact(session -> {
+			String sql = "select street from address";
+			session.createQuery(sql).fetch();
+			session.createQuery(sql).setResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY).fetch();
+			assertEquals(2, session.getStatementCache().getMissCount());
+		});
+	}
+
+	@Test
+	public void leastRecentlyUsedStatementIsEvicted() throws Exception {
+		SQLPlus sqlPlus = new SQLPlus(db.getUrl(), db.getUsername(), db.getPassword());
+		sqlPlus.setStatementCacheSize(1);
+		sqlPlus.transact(session -> {
+			session.createQuery("select * from address").fetch();
+			session.createQuery("select * from employee").fetch();
+			session.createQuery("select * from address").fetch();
+			StatementCache cache = session.getStatementCache();
+			assertEquals(3, cache.getMissCount());
+			assertEquals(2, cache.getEvictionCount());
+			assertEquals(1, cache.size());
+		});
+		assertEquals(0, sqlPlus.getStatementCacheHitCount());
+		assertEquals(3, sqlPlus.getStatementCacheMissCount());
+	}
+
+	@Test
+	public void sameQueryExecutedWhileStreamingGetsSeparateStatement() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		db.getSQLPlus().transact(session -> {
+			String sql = "select street from address order by address_id";
+			List<String> streets = session.createQuery(sql).streamAs(String.class)
+			                              .map(street -> street + ":" + session.createQuery(sql).fetchAs(String.class).size())
+			                              .collect(Collectors.toList());
+			assertEquals("Maple Street:2", streets.get(0));
+			assertEquals("Elm Street:2", streets.get(1));
+
+			// The outer statement was released on exhaustion, so it can now be reused
+			session.createQuery(sql).fetch();
+			assertEquals(1, session.getStatementCache().getHitCount());
+		});
+	}
+
+	@Test
+	public void cacheCanBeDisabled() throws Exception {
+		SQLPlus sqlPlus = new SQLPlus(db.getUrl(), db.getUsername(), db.getPassword());
+		sqlPlus.setStatementCacheSize(0);
+		sqlPlus.transact(session -> {
+			session.createQuery("select * from address").fetch();
+			session.createQuery("select * from address").fetch();
+			assertEquals(0, session.getStatementCache().getHitCount());
+			assertEquals(0, session.getStatementCache().size());
+		});
+	}
+
+	@Test
+	public void everyStatementAndTheConnectionAreClosedWhenAStatementFailsToClose() throws Exception {
+		List<String> closedStatements = Collections.synchronizedList(new ArrayList<>());
+		BasicDataSource failingCloses = new BasicDataSource(db.getUrl(), db.getUsername(), db.getPassword()) {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection physical = super.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					Object result = invoke(method, physical, args);
+					if (!method.getName().equals("prepareStatement")) {
+						return result;
+					}
+					String sql = (String) args[0];
+					PreparedStatement ps = (PreparedStatement) result;
+					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class }, (psProxy, psMethod, psArgs) -> {
+						Object psResult = invoke(psMethod, ps, psArgs);
+						if (psMethod.getName().equals("close")) {
+							closedStatements.add(sql);
+							if (sql.contains("address")) {
+								throw new SQLException("Failed to close " + sql);
+							}
+						}
+						return psResult;
+					});
+				});
+			}
+
+		};
+
+		// A single connection, so a connection not returned to the pool would block the next transaction
+		PooledDataSource pool = new PooledDataSource(failingCloses, 1).setConnectionTimeoutMillis(5000);
+		SQLPlus sqlPlus = new SQLPlus(pool);
+		for (int i = 0; i < 3; i++) {
+			closedStatements.clear();
+			assertThrows(() -> sqlPlus.transact(session -> {
+				session.createQuery("select * from address").fetch();
+				session.createQuery("select * from employee").fetch();
+				session.createQuery("select * from office").fetch();
+			}), SQLRuntimeException.class);
+			assertEquals(3, closedStatements.size());
+		}
+		assertEquals(0, pool.getActiveConnections());
+		pool.close();
+	}
+
+	private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.Query;
+import com.tyler.sqlplus.SQLPlus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of accumulating large parameter batches in a {@link Query}, and of inserting them into an in-memory
+ * H2 database, both with executeBatch() and as multi-row inserts. Run with the GC profiler to compare the allocation per
+ * batched row:
+ * <br/>
+ * gradle benchmark -Pbenchmark=BatchInsertBenchmark (append '-prof gc' to the JMH arguments)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchInsertBenchmark {
+
+	private static final int ROWS = 100_000;
+
+	private static final String DB_URL = "jdbc:h2:mem:batch_insert_benchmark;DB_CLOSE_DELAY=-1";
+
+	private static final String INSERT_ORDER =
+		"insert into orders (order_id, customer_id, created_millis, weight, priority, issuer, total) " +
+		"values (:orderId, :customerId, :createdMillis, :weight, :priority, :issuer, :total)";
+
+	private static final int MULTI_ROW_INSERT_SIZE = 100;
+
+	private static final BigDecimal TOTAL = new BigDecimal("19.99");
+
+	private SQLPlus sqlPlus;
+
+	@Setup
+	public void setup() throws Exception {
+		try (Connection conn = DriverManager.getConnection(DB_URL, "sa", "sa")) {
+			Statement st = conn.createStatement();
+			st.executeUpdate("drop table if exists orders");
+			st.executeUpdate(
+				"create table orders (order_id int, customer_id int, created_millis bigint, weight double, priority boolean, " +
+				"issuer varchar(45), total decimal(10, 2))");
+		}
+		sqlPlus = new SQLPlus(DB_URL, "sa", "sa");
+	}
+
+	@Setup(Level.Invocation)
+	public void clearOrders() {
+		sqlPlus.transact(session -> session.createQuery("delete from orders").executeUpdate());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public Query bufferRows() {
+		return sqlPlus.transactAndReturn(session -> addRows(session.createQuery(INSERT_ORDER)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] insertRows() {
+		return sqlPlus.transactAndReturn(session -> addRows(session.createQuery(INSERT_ORDER)).executeUpdate());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] insertRowsAsMultiRowInserts() {
+		return sqlPlus.transactAndReturn(session -> addRows(session.createQuery(INSERT_ORDER).setMultiRowInsertSize(MULTI_ROW_INSERT_SIZE)).executeUpdate());
+	}
+
+	private static Query addRows(Query query) {
+		for (int i = 0; i < ROWS; i++) {
+			query.setParameter("orderId", i)
+			     .setParameter("customerId", i % 1000)
+			     .setParameter("createdMillis", 1_500_000_000_000L + i)
+			     .setParameter("weight", i * 0.5)
+			     .setParameter("priority", i % 2 == 0)
+			     .setParameter("issuer", i % 10 == 0 ? null : "issuer")
+			     .setParameter("total", TOTAL)
+			     .finishBatch();
+		}
+		return query;
+	}
+
+}
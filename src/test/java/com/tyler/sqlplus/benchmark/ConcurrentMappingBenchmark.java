@@ -0,0 +1,90 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.Session;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.mapper.RowMapper;
+import com.tyler.sqlplus.mapper.RowMapperFactory;
+import com.tyler.sqlplus.utility.Fields;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stresses the library's metadata caches by mapping entity types which have never been seen before from 64 threads at
+ * once. Each iteration defines a fresh batch of entity classes in a new class loader, so every iteration starts with
+ * cold proxy, mapping plan, field accessor and converter caches. Every mapped entity is checked, so a corrupted cache
+ * fails the benchmark rather than skewing it.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=ConcurrentMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class ConcurrentMappingBenchmark {
+
+	private static final int TYPES_PER_ITERATION = 512;
+
+	private static final AtomicInteger ITERATION = new AtomicInteger();
+
+	private final AtomicInteger nextType = new AtomicInteger();
+
+	private Class<?>[] entityTypes;
+
+	private Field[] idFields;
+
+	private Field[] nameFields;
+
+	@Setup(Level.Iteration)
+	public void defineEntityTypes() throws Exception {
+
+		ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {};
+		ClassPool pool = new ClassPool(true);
+		int iteration = ITERATION.incrementAndGet();
+
+		entityTypes = new Class<?>[TYPES_PER_ITERATION];
+		idFields = new Field[TYPES_PER_ITERATION];
+		nameFields = new Field[TYPES_PER_ITERATION];
+		for (int i = 0; i < TYPES_PER_ITERATION; i++) {
+			CtClass entity = pool.makeClass(getClass().getName() + "$Entity" + iteration + "_" + i);
+			entity.addField(CtField.make("public int id;", entity));
+			entity.addField(CtField.make("private String name;", entity));
+			entity.addConstructor(CtNewConstructor.defaultConstructor(entity));
+			entityTypes[i] = entity.toClass(loader, null);
+			idFields[i] = entityTypes[i].getDeclaredField("id");
+			nameFields[i] = entityTypes[i].getDeclaredField("name");
+			entity.detach();
+		}
+		nextType.set(0);
+	}
+
+	@Benchmark
+	public Object mapNewType() throws Exception {
+
+		int typeIndex = Math.floorMod(nextType.getAndIncrement(), TYPES_PER_ITERATION);
+
+		SimpleResultSet rs = new SimpleResultSet();
+		rs.addColumn("id", Types.INTEGER, 10, 0);
+		rs.addColumn("NAME", Types.VARCHAR, 45, 0);
+		rs.addRow(typeIndex, "entity-" + typeIndex);
+		rs.next();
+
+		RowMapper<?> mapper = RowMapperFactory.newMapper(entityTypes[typeIndex], ConversionRegistry.getShared(), (Session) null);
+		Object entity = mapper.map(rs);
+
+		if (!Integer.valueOf(typeIndex).equals(Fields.get(idFields[typeIndex], entity)) ||
+		    !("entity-" + typeIndex).equals(Fields.get(nameFields[typeIndex], entity))) {
+			throw new IllegalStateException("Entity of " + entityTypes[typeIndex] + " was mapped incorrectly");
+		}
+		return entity;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.SQLPlus;
+import com.tyler.sqlplus.annotation.LoadQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rows mapped per second when fetching plain entities versus entities which require a lazy-loading proxy.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=EntityMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EntityMappingBenchmark {
+
+	private static final int ROWS = 10_000;
+
+	private static final String DB_URL = "jdbc:h2:mem:entity_mapping_benchmark;DB_CLOSE_DELAY=-1";
+
+	private static final String SELECT_ORDERS = "select order_id as \"orderId\", issuer as \"issuer\", total as \"total\" from orders";
+
+	public static class PlainOrder {
+		public Integer orderId;
+		public String issuer;
+		public Integer total;
+	}
+
+	public static class ProxiedOrder {
+
+		public Integer orderId;
+		public String issuer;
+		public Integer total;
+
+		@LoadQuery("select comment_id from order_comment where order_id = :orderId")
+		public List<Integer> commentIds;
+
+		public List<Integer> getCommentIds() {
+			return commentIds;
+		}
+
+	}
+
+	private SQLPlus sqlPlus;
+
+	@Setup
+	public void setup() throws Exception {
+		try (Connection conn = DriverManager.getConnection(DB_URL, "sa", "sa")) {
+			Statement st = conn.createStatement();
+			st.executeUpdate("drop table if exists orders");
+			st.executeUpdate("create table orders (order_id int primary key, issuer varchar(45), total int)");
+			PreparedStatement ps = conn.prepareStatement("insert into orders values (?, ?, ?)");
+			for (int i = 1; i <= ROWS; i++) {
+				ps.setInt(1, i);
+				ps.setString(2, "issuer-" + i);
+				ps.setInt(3, i * 10);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		sqlPlus = new SQLPlus(DB_URL, "sa", "sa");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<PlainOrder> fetchPlainEntities() {
+		return sqlPlus.transactAndReturn(session -> session.createQuery(SELECT_ORDERS).fetchAs(PlainOrder.class));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<ProxiedOrder> fetchProxiedEntities() {
+		return sqlPlus.transactAndReturn(session -> session.createQuery(SELECT_ORDERS).fetchAs(ProxiedOrder.class));
+	}
+
+}
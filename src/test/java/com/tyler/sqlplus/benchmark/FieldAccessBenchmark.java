@@ -0,0 +1,106 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.function.Functions;
+import com.tyler.sqlplus.utility.Fields;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compares reading and writing entity fields through {@link Fields}, which caches reflective accessors per class, against
+ * the unsynchronized map {@link Fields} used to cache them in, and against bare {@link Field} and {@link Method} calls.
+ * The 'held' variants measure accessors which callers such as row mappers resolve once and keep.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=FieldAccessBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FieldAccessBenchmark {
+
+	public static class Employee {
+
+		private String name;
+		private int age;
+
+		public String getName() {
+			return name;
+		}
+
+	}
+
+	private Employee employee;
+	private Field nameField;
+	private Field ageField;
+	private Method nameGetter;
+	private Function<Object, Object> heldNameGetter;
+	private BiConsumer<Object, Object> heldAgeSetter;
+	private Integer age = 42;
+
+	private final Map<Field, Functions.ThrowingFunction<Object, Object>> reflectiveGetters = new HashMap<>();
+	private final Map<Field, Functions.ThrowingBiConsumer<Object, Object>> reflectiveSetters = new HashMap<>();
+
+	@Setup
+	public void setup() throws Exception {
+		employee = new Employee();
+		employee.name = "Tyler";
+		nameField = Employee.class.getDeclaredField("name");
+		ageField = Employee.class.getDeclaredField("age");
+		nameField.setAccessible(true);
+		ageField.setAccessible(true);
+		nameGetter = Employee.class.getDeclaredMethod("getName");
+		heldNameGetter = Fields.getter(Employee.class, nameField);
+		heldAgeSetter = Fields.setter(ageField);
+	}
+
+	@Benchmark
+	public Object getterReflection() throws Exception {
+		return nameGetter.invoke(employee);
+	}
+
+	@Benchmark
+	public Object getterCachedReflection() throws Exception {
+		return reflectiveGetters.computeIfAbsent(nameField, f -> nameGetter::invoke).apply(employee);
+	}
+
+	@Benchmark
+	public Object getterFields() {
+		return Fields.get(nameField, employee);
+	}
+
+	@Benchmark
+	public Object getterHeld() {
+		return heldNameGetter.apply(employee);
+	}
+
+	@Benchmark
+	public Object setterReflection() throws Exception {
+		ageField.set(employee, age);
+		return employee;
+	}
+
+	@Benchmark
+	public Object setterCachedReflection() throws Exception {
+		reflectiveSetters.computeIfAbsent(ageField, f -> ageField::set).accept(employee, age);
+		return employee;
+	}
+
+	@Benchmark
+	public Object setterFields() {
+		Fields.set(ageField, employee, age);
+		return employee;
+	}
+
+	@Benchmark
+	public Object setterHeld() {
+		heldAgeSetter.accept(employee, age);
+		return employee;
+	}
+
+}
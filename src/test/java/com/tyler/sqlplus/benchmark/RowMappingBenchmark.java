@@ -0,0 +1,108 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.Session;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.mapper.RowMapper;
+import com.tyler.sqlplus.mapper.RowMapperFactory;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures POJO row mapping throughput, with and without generated row mappers, over an in-memory result set so that
+ * driver and network costs are excluded.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=RowMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RowMappingBenchmark {
+
+	private static final int ROWS = 10_000;
+
+	public enum Status { OPEN, SHIPPED }
+
+	public static class PublicFieldsOrder {
+		public int orderId;
+		public Integer customerId;
+		public long createdMillis;
+		public String issuer;
+		public String region;
+		public String notes;
+		public double weight;
+		public boolean priority;
+		public BigDecimal total;
+		public LocalDate created;
+		public Status status;
+	}
+
+	public static class PrivateFieldsOrder {
+		private int orderId;
+		private Integer customerId;
+		private long createdMillis;
+		private String issuer;
+		private String region;
+		private String notes;
+		private double weight;
+		private boolean priority;
+		private BigDecimal total;
+		private LocalDate created;
+		private Status status;
+	}
+
+	@Param({ "true", "false" })
+	public boolean generatedMappers;
+
+	@Param({ "public", "private" })
+	public String fieldVisibility;
+
+	private SimpleResultSet rs;
+
+	private Class<?> entityClass;
+
+	@Setup
+	public void setup() {
+		RowMapperFactory.setGeneratedMappersEnabled(generatedMappers);
+		entityClass = fieldVisibility.equals("public") ? PublicFieldsOrder.class : PrivateFieldsOrder.class;
+
+		rs = new SimpleResultSet();
+		rs.setAutoClose(false);
+		rs.addColumn("orderId", Types.INTEGER, 10, 0);
+		rs.addColumn("customerId", Types.INTEGER, 10, 0);
+		rs.addColumn("createdMillis", Types.BIGINT, 19, 0);
+		rs.addColumn("issuer", Types.VARCHAR, 45, 0);
+		rs.addColumn("region", Types.VARCHAR, 45, 0);
+		rs.addColumn("notes", Types.VARCHAR, 255, 0);
+		rs.addColumn("weight", Types.DOUBLE, 17, 0);
+		rs.addColumn("priority", Types.BOOLEAN, 1, 0);
+		rs.addColumn("total", Types.DECIMAL, 10, 2);
+		rs.addColumn("created", Types.VARCHAR, 10, 0);
+		rs.addColumn("status", Types.VARCHAR, 10, 0);
+		for (int i = 0; i < ROWS; i++) {
+			rs.addRow(i, i % 100, 1_500_000_000_000L + i, "issuer-" + i, "north", null, i * 0.5, i % 2 == 0,
+			          new BigDecimal("19.99"), "2017-01-28", i % 3 == 0 ? "OPEN" : "SHIPPED");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		RowMapperFactory.setGeneratedMappersEnabled(true);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapRows(Blackhole blackhole) throws Exception {
+		rs.beforeFirst();
+		RowMapper<?> mapper = RowMapperFactory.newMapper(entityClass, new ConversionRegistry(), (Session) null);
+		while (rs.next()) {
+			blackhole.consume(mapper.map(rs));
+		}
+	}
+
+}
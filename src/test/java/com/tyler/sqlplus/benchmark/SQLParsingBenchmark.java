@@ -0,0 +1,71 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.CompiledSQL;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass SQL tokenizer used by {@link CompiledSQL} with the regex-based parsing it replaced, on a long
+ * reporting-style query.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=SQLParsingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SQLParsingBenchmark {
+
+	private static final Pattern REGEX_PARAM = Pattern.compile(":\\w+|\\?");
+
+	@Param({ "10", "50" })
+	public int unionBranches;
+
+	private String reportSQL;
+
+	@Setup
+	public void setup() {
+		StringBuilder sql = new StringBuilder();
+		for (int branch = 0; branch < unionBranches; branch++) {
+			if (branch > 0) {
+				sql.append("\nunion all\n");
+			}
+			sql.append("-- Region ").append(branch).append(" totals\n")
+			   .append("select o.region_id, o.created_at::date as day, sum(o.total) as total, count(*) as orders, ")
+			   .append("max(case when o.status = 'SHIPPED' then o.shipped_at end) as \"last shipped\" ")
+			   .append("from orders o join customer c on c.customer_id = o.customer_id ")
+			   .append("where o.region_id = :region").append(branch)
+			   .append(" and o.created_at between :from").append(branch).append(" and :to").append(branch)
+			   .append(" and c.tier in (?, ?) /* excludes internal test accounts */ ")
+			   .append("group by o.region_id, o.created_at::date");
+		}
+		reportSQL = sql.toString();
+	}
+
+	@Benchmark
+	public CompiledSQL tokenizer() {
+		return CompiledSQL.parse(reportSQL);
+	}
+
+	@Benchmark
+	public Object regex() {
+		Map<String, Integer> paramLabel_index = new HashMap<>();
+		int paramIndex = 0;
+		Matcher paramsMatcher = REGEX_PARAM.matcher(reportSQL);
+		while (paramsMatcher.find()) {
+			paramIndex++;
+			String paramLabel = paramsMatcher.group();
+			if (paramLabel.equals("?")) {
+				paramLabel_index.put(paramIndex + "", paramIndex);
+			} else {
+				paramLabel_index.put(paramLabel.substring(1), paramIndex);
+			}
+		}
+		return new Object[]{ paramLabel_index, reportSQL.replaceAll(REGEX_PARAM.pattern(), "?") };
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.tyler.sqlplus.benchmark;
+
+import com.tyler.sqlplus.BasicDataSource;
+import com.tyler.sqlplus.PooledDataSource;
+import com.tyler.sqlplus.SQLPlus;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of small transactions against an H2 database served over TCP, with a new physical connection
+ * per transaction compared to connections from a {@link PooledDataSource}.
+ * <br/>
+ * Run with: gradle benchmark -Pbenchmark=TransactionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionBenchmark {
+
+	private Server server;
+	private SQLPlus unpooled;
+	private SQLPlus pooled;
+
+	@Setup
+	public void setup() throws Exception {
+		server = Server.createTcpServer("-tcpPort", "0").start();
+		String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:transaction_benchmark;DB_CLOSE_DELAY=-1";
+		try (Connection conn = DriverManager.getConnection(url, "sa", "sa")) {
+			Statement st = conn.createStatement();
+			st.executeUpdate("drop table if exists counter");
+			st.executeUpdate("create table counter (id int primary key, hits int)");
+			st.executeUpdate("insert into counter values (1, 0)");
+		}
+		unpooled = new SQLPlus(new BasicDataSource(url, "sa", "sa"));
+		pooled = new SQLPlus(new PooledDataSource(url, "sa", "sa"));
+	}
+
+	@TearDown
+	public void teardown() {
+		((PooledDataSource) pooled.getDataSource()).close();
+		server.stop();
+	}
+
+	@Benchmark
+	public int[] unpooledTransaction() {
+		return unpooled.transactAndReturn(session -> session.createQuery("update counter set hits = hits + 1 where id = 1").executeUpdate());
+	}
+
+	@Benchmark
+	public int[] pooledTransaction() {
+		return pooled.transactAndReturn(session -> session.createQuery("update counter set hits = hits + 1 where id = 1").executeUpdate());
+	}
+
+}
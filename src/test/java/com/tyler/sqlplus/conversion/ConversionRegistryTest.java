@@ -0,0 +1,96 @@
+package com.tyler.sqlplus.conversion;
+
+import com.tyler.sqlplus.exception.ConversionException;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class ConversionRegistryTest {
+
+	enum Size { SMALL, LARGE }
+
+	static class Money {}
+
+	static class Euros extends Money {}
+
+	@Test
+	public void sharedRegistryIsSharedAndDefaultRegistriesAreNot() throws Exception {
+		assertSame(ConversionRegistry.getShared(), ConversionRegistry.getShared());
+		assertNotSame(ConversionRegistry.getDefault(), ConversionRegistry.getDefault());
+		assertNotSame(ConversionRegistry.getShared(), ConversionRegistry.getDefault());
+	}
+
+	@Test
+	public void overridesOnADefaultRegistryOnlyApplyToIt() throws Exception {
+		ConversionRegistry registry = ConversionRegistry.getDefault();
+		SQLConverter<Money> override = new StubConverter<>(Money.class);
+		registry.registerConverter(Money.class, override);
+
+		assertSame(override, registry.getConverter(Money.class));
+		assertNotSame(override, ConversionRegistry.getShared().getConverter(Money.class));
+		assertNotSame(override, ConversionRegistry.getDefault().getConverter(Money.class));
+	}
+
+	@Test
+	public void subtypesResolveToMostSpecificRegisteredSupertype() throws Exception {
+		ConversionRegistry registry = new ConversionRegistry();
+		assertSame(registry.getConverter(Enum.class), registry.getConverter(Size.class));
+		assertSame(registry.getConverter(Object.class), registry.getConverter(ArrayList.class));
+	}
+
+	@Test
+	public void overridesDoNotAffectDefaultRegistry() throws Exception {
+		ConversionRegistry registry = new ConversionRegistry();
+		SQLConverter<String> override = new StubConverter<>(String.class);
+		registry.registerConverter(String.class, override);
+
+		assertSame(override, registry.getConverter(String.class));
+		assertNotSame(override, ConversionRegistry.getShared().getConverter(String.class));
+		assertNotSame(override, new ConversionRegistry().getConverter(String.class));
+	}
+
+	@Test
+	public void overridesRegisteredAfterResolutionAreUsedForSubtypes() throws Exception {
+		ConversionRegistry registry = new ConversionRegistry();
+		assertSame(registry.getConverter(Object.class), registry.getConverter(Euros.class));
+
+		SQLConverter<Money> moneyConverter = new StubConverter<>(Money.class);
+		registry.registerConverter(Money.class, moneyConverter);
+		assertSame(moneyConverter, registry.getConverter(Euros.class));
+	}
+
+	@Test
+	public void primitivesWithoutConverterAreNotResolvedAsObjects() throws Exception {
+		assertThrows(() -> new ConversionRegistry().getConverter(void.class), ConversionException.class);
+	}
+
+	private static class StubConverter<T> extends SQLConverter<T> {
+
+		private final Class<T> type;
+
+		StubConverter(Class<T> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Class<T> getConvertedClass() {
+			return type;
+		}
+
+		@Override
+		public T read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			return null;
+		}
+
+		@Override
+		public void write(PreparedStatement ps, int parameterIndex, T obj) throws SQLException {}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.tyler.sqlplus.keyprovider;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HiLoKeyProviderTest {
+
+	@Test
+	public void keysAreHandedOutFromBlocksOfTheGivenSize() throws Exception {
+		AtomicLong hi = new AtomicLong(1);
+		HiLoKeyProvider<Long> keyProvider = new HiLoKeyProvider<>(session -> hi.getAndIncrement(), 3, Long.class);
+		List<Long> keys = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			keys.add(keyProvider.getKey(null));
+		}
+		assertEquals(Arrays.asList(3L, 4L, 5L, 6L, 7L, 8L, 9L), keys);
+		assertEquals(4, hi.get());
+	}
+
+	@Test
+	public void batchesOfKeysSpanBlocks() throws Exception {
+		AtomicLong hi = new AtomicLong(0);
+		HiLoKeyProvider<Integer> keyProvider = new HiLoKeyProvider<>(session -> hi.getAndIncrement(), 4, Integer.class);
+		assertEquals(Arrays.asList(0, 1), keyProvider.getKeys(null, 2));
+		assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7, 8), keyProvider.getKeys(null, 7));
+		assertEquals(Collections.singletonList(9), keyProvider.getKeys(null, 1));
+		assertEquals(3, hi.get());
+	}
+
+	@Test
+	public void keysAreConvertedToTheKeyClass() throws Exception {
+		HiLoKeyProvider<BigInteger> keyProvider = new HiLoKeyProvider<>(session -> 2, 10, BigInteger.class);
+		assertEquals(BigInteger.valueOf(20), keyProvider.getKey(null));
+	}
+
+	@Test
+	public void keysAreUniqueAcrossThreads() throws Exception {
+		AtomicLong hi = new AtomicLong(0);
+		HiLoKeyProvider<Long> keyProvider = new HiLoKeyProvider<>(session -> hi.getAndIncrement(), 7, Long.class);
+		Set<Long> keys = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					for (int i = 0; i < 500; i++) {
+						assertTrue(keys.add(keyProvider.getKey(null)));
+						keys.addAll(keyProvider.getKeys(null, 3));
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8 * 500 * 4, keys.size());
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.tyler.sqlplus.mapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class PrefetchBufferTest {
+
+	@Test
+	public void capacityIsRoundedUpToAPowerOf2() {
+		assertEquals(1, new PrefetchBuffer<>(0).capacity());
+		assertEquals(8, new PrefetchBuffer<>(5).capacity());
+		assertEquals(16, new PrefetchBuffer<>(16).capacity());
+	}
+
+	@Test
+	public void itemsAreTakenInOrderAcrossThreads() throws Exception {
+		PrefetchBuffer<Integer> buffer = new PrefetchBuffer<>(4);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 10_000; i++) {
+				buffer.put(i);
+			}
+			buffer.finish(null);
+		});
+		producer.start();
+
+		List<Object> taken = new ArrayList<>();
+		Object item;
+		while ((item = buffer.take()) != PrefetchBuffer.END) {
+			taken.add(item);
+		}
+		producer.join();
+
+		assertEquals(10_000, taken.size());
+		for (int i = 0; i < taken.size(); i++) {
+			assertEquals(i, taken.get(i));
+		}
+		assertNull(buffer.getFailure());
+	}
+
+	@Test
+	public void producerWaitsWhileTheBufferIsFull() throws Exception {
+		PrefetchBuffer<Integer> buffer = new PrefetchBuffer<>(2);
+		AtomicInteger produced = new AtomicInteger();
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 3; i++) {
+				buffer.put(i);
+				produced.incrementAndGet();
+			}
+			buffer.finish(null);
+		});
+		producer.start();
+
+		waitFor(() -> producer.getState() == Thread.State.WAITING);
+		assertEquals(2, produced.get());
+		assertEquals(0, buffer.take());
+		producer.join(TimeUnit.SECONDS.toMillis(5));
+		assertEquals(3, produced.get());
+	}
+
+	@Test
+	public void cancellingReleasesAWaitingProducer() throws Exception {
+		PrefetchBuffer<Integer> buffer = new PrefetchBuffer<>(1);
+		List<Boolean> puts = new ArrayList<>();
+		Thread producer = new Thread(() -> {
+			while (!buffer.isCancelled()) {
+				puts.add(buffer.put(1));
+			}
+			buffer.finish(null);
+		});
+		producer.start();
+
+		waitFor(() -> producer.getState() == Thread.State.WAITING);
+		buffer.cancel();
+		producer.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(producer.isAlive());
+		assertEquals(true, puts.get(0));
+		assertEquals(false, puts.get(puts.size() - 1));
+	}
+
+	@Test
+	public void failuresArePassedToTheConsumerAfterTheRemainingItems() {
+		PrefetchBuffer<Integer> buffer = new PrefetchBuffer<>(4);
+		IllegalStateException failure = new IllegalStateException();
+		buffer.put(1);
+		buffer.finish(failure);
+		assertEquals(1, buffer.take());
+		assertSame(PrefetchBuffer.END, buffer.take());
+		assertSame(failure, buffer.getFailure());
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timed out waiting for condition", System.nanoTime() < deadline);
+			Thread.sleep(1);
+		}
+	}
+
+}
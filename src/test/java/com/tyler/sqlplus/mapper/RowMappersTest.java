@@ -63,25 +63,25 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getInt("intField")).thenReturn(1);
-		when(rsToMap.getFloat("floatField")).thenReturn(1.5f);
-		when(rsToMap.getShort("shortField")).thenReturn((short) 2);
-		when(rsToMap.getLong("longField")).thenReturn((long) 3);
-		when(rsToMap.getDouble("doubleField")).thenReturn((double) 4);
-		when(rsToMap.getBoolean("boolField")).thenReturn(true);
-		when(rsToMap.getString("charField")).thenReturn("c");
-		
-		when(rsToMap.getInt("bigIntField")).thenReturn(1);
-		when(rsToMap.getFloat("bigFloatField")).thenReturn(1.5f);
-		when(rsToMap.getShort("bigShortField")).thenReturn((short) 2);
-		when(rsToMap.getLong("bigLongField")).thenReturn((long) 3);
-		when(rsToMap.getDouble("bigDoubleField")).thenReturn((double) 4);
-		when(rsToMap.getBoolean("bigBoolField")).thenReturn(true);
-		when(rsToMap.getString("bigCharField")).thenReturn("c");
-		
-		when(rsToMap.getString("stringField")).thenReturn("string");
-		when(rsToMap.getString("enumField")).thenReturn("SMALL");
-		when(rsToMap.getString("localDateField")).thenReturn("2015-01-01");
+		when(rsToMap.getInt(1)).thenReturn(1);
+		when(rsToMap.getFloat(3)).thenReturn(1.5f);
+		when(rsToMap.getShort(5)).thenReturn((short) 2);
+		when(rsToMap.getLong(7)).thenReturn((long) 3);
+		when(rsToMap.getDouble(9)).thenReturn((double) 4);
+		when(rsToMap.getBoolean(11)).thenReturn(true);
+		when(rsToMap.getString(13)).thenReturn("c");
+		
+		when(rsToMap.getInt(2)).thenReturn(1);
+		when(rsToMap.getFloat(4)).thenReturn(1.5f);
+		when(rsToMap.getShort(6)).thenReturn((short) 2);
+		when(rsToMap.getLong(8)).thenReturn((long) 3);
+		when(rsToMap.getDouble(10)).thenReturn((double) 4);
+		when(rsToMap.getBoolean(12)).thenReturn(true);
+		when(rsToMap.getString(14)).thenReturn("c");
+		
+		when(rsToMap.getString(15)).thenReturn("string");
+		when(rsToMap.getString(16)).thenReturn("SMALL");
+		when(rsToMap.getString(17)).thenReturn("2015-01-01");
 		
 		MyPOJO pojo = RowMapperFactory.newMapper(MyPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		
@@ -120,7 +120,7 @@ public class RowMappersTest {
 		
 		ResultSet rsToMap = mock(ResultSet.class);
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getInt("presentField")).thenReturn(1);
+		when(rsToMap.getInt(1)).thenReturn(1);
 		
 		POJOWithNullFields pojo = RowMapperFactory.newMapper(POJOWithNullFields.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		
@@ -173,8 +173,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		ProxiablePOJOByField proxy = RowMapperFactory.newMapper(ProxiablePOJOByField.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertTrue(proxy instanceof Proxy);
@@ -204,8 +204,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		ProxiablePOJOByMethod proxy = RowMapperFactory.newMapper(ProxiablePOJOByMethod.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertTrue(proxy instanceof Proxy);
@@ -226,8 +226,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		NormalPOJO pojo = RowMapperFactory.newMapper(NormalPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertFalse(pojo instanceof Proxy);
@@ -250,11 +250,105 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 
 		// Throws if error
 		RowMapperFactory.newMapper(PrivateConstructorPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 	}
-	
+
+	public static class GeneratedMapperPOJO {
+		public int id;
+		public String name;
+		Integer packageVisibleCount;
+		private double privateAmount;
+	}
+
+	@Test
+	public void testGeneratedMapperAssignsAccessibleAndPrivateFields() throws Exception {
+
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(5);
+		when(rsMeta.getColumnLabel(1)).thenReturn("name");
+		when(rsMeta.getColumnLabel(2)).thenReturn("unmapped");
+		when(rsMeta.getColumnLabel(3)).thenReturn("id");
+		when(rsMeta.getColumnLabel(4)).thenReturn("PACKAGE_VISIBLE_COUNT");
+		when(rsMeta.getColumnLabel(5)).thenReturn("privateAmount");
+
+		ResultSet rsToMap = mock(ResultSet.class);
+		when(rsToMap.getMetaData()).thenReturn(rsMeta);
+		when(rsToMap.getString(1)).thenReturn("widget");
+		when(rsToMap.getInt(3)).thenReturn(7);
+		when(rsToMap.getInt(4)).thenReturn(3);
+		when(rsToMap.getDouble(5)).thenReturn(2.5);
+
+		MappingPlan plan = MappingPlan.forLayout(GeneratedMapperPOJO.class, rsMeta);
+		RowMapper<GeneratedMapperPOJO> mapper = RowMapperGenerator.newMapper(plan, new ConversionRegistry(), mock(Session.class));
+		assertTrue(mapper instanceof GeneratedRowMapper);
+
+		GeneratedMapperPOJO pojo = mapper.map(rsToMap);
+		assertEquals(7, pojo.id);
+		assertEquals("widget", pojo.name);
+		assertEquals(new Integer(3), pojo.packageVisibleCount);
+		assertEquals(2.5, pojo.privateAmount, 0);
+	}
+
+	@Test
+	public void testMappingPlanIsSharedForSameTypeAndColumnLayout() throws Exception {
+
+		ResultSetMetaData rsMetaA = mock(ResultSetMetaData.class);
+		when(rsMetaA.getColumnCount()).thenReturn(2);
+		when(rsMetaA.getColumnLabel(1)).thenReturn("ID");
+		when(rsMetaA.getColumnLabel(2)).thenReturn("NAME");
+
+		ResultSetMetaData rsMetaB = mock(ResultSetMetaData.class);
+		when(rsMetaB.getColumnCount()).thenReturn(2);
+		when(rsMetaB.getColumnLabel(1)).thenReturn("ID");
+		when(rsMetaB.getColumnLabel(2)).thenReturn("NAME");
+
+		MappingPlan plan = MappingPlan.forLayout(GeneratedMapperPOJO.class, rsMetaA);
+		assertSame(plan, MappingPlan.forLayout(GeneratedMapperPOJO.class, rsMetaB));
+		assertNotSame(plan, MappingPlan.forLayout(NormalPOJO.class, rsMetaA));
+
+		assertEquals(2, plan.fields.length);
+		assertEquals(GeneratedMapperPOJO.class.getDeclaredField("id"), plan.fields[0]);
+		assertEquals(GeneratedMapperPOJO.class.getDeclaredField("name"), plan.fields[1]);
+		assertArrayEquals(new int[]{ 1, 2 }, plan.columns);
+	}
+
+	public static class ManyLayoutsPOJO {
+		public int id;
+	}
+
+	@Test
+	public void testLayoutsPastTheCacheBoundAreNotCachedOrGenerated() throws Exception {
+
+		for (int layout = 0; layout < MappingPlan.MAX_LAYOUTS_PER_TYPE; layout++) {
+			MappingPlan plan = MappingPlan.forLayout(ManyLayoutsPOJO.class, metaData("id", "extra" + layout));
+			assertSame(plan, MappingPlan.forLayout(ManyLayoutsPOJO.class, metaData("id", "extra" + layout)));
+		}
+
+		MappingPlan uncached = MappingPlan.forLayout(ManyLayoutsPOJO.class, metaData("id", "overflow"));
+		assertNotSame(uncached, MappingPlan.forLayout(ManyLayoutsPOJO.class, metaData("id", "overflow")));
+		assertFalse(uncached.getGeneratedMapperClass().isPresent());
+		assertNull(RowMapperGenerator.newMapper(uncached, new ConversionRegistry(), mock(Session.class)));
+		assertArrayEquals(new int[]{ 1 }, uncached.columns);
+	}
+
+	private static ResultSetMetaData metaData(String... labels) throws Exception {
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(labels.length);
+		for (int col = 1; col <= labels.length; col++) {
+			when(rsMeta.getColumnLabel(col)).thenReturn(labels[col - 1]);
+		}
+		return rsMeta;
+	}
+
+	@Test
+	public void testFieldForColumnResolvesExactAndUnderscoreNames() throws Exception {
+		assertEquals(GeneratedMapperPOJO.class.getDeclaredField("packageVisibleCount"), MappingPlan.fieldForColumn(GeneratedMapperPOJO.class, "packageVisibleCount"));
+		assertEquals(GeneratedMapperPOJO.class.getDeclaredField("packageVisibleCount"), MappingPlan.fieldForColumn(GeneratedMapperPOJO.class, "PACKAGE_VISIBLE_COUNT"));
+		assertNull(MappingPlan.fieldForColumn(GeneratedMapperPOJO.class, "unmapped"));
+	}
+
 }
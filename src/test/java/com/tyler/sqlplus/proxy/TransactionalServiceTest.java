@@ -5,15 +5,18 @@ import com.tyler.sqlplus.annotation.*;
 import com.tyler.sqlplus.annotation.SQLUpdate.ReturnInfo;
 import com.tyler.sqlplus.exception.AnnotationConfigurationException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
+import com.tyler.sqlplus.keyprovider.HiLoKeyProvider;
 import com.tyler.sqlplus.base.AbstractDatabase.Address;
 import com.tyler.sqlplus.base.DatabaseTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
 import static org.junit.Assert.assertArrayEquals;
@@ -111,6 +114,9 @@ public class TransactionalServiceTest extends DatabaseTest {
 		
 		@SQLQuery("select count(*) from address")
 		public abstract int countAddress();
+
+		@SQLQuery(value = "select count(*) from address", readOnly = true)
+		public abstract int countAddressReadOnly();
 		
 		@SQLQuery("select * from address")
 		public abstract List<Address> getAddresses();
@@ -121,12 +127,18 @@ public class TransactionalServiceTest extends DatabaseTest {
 		@SQLQuery("select street from address")
 		public abstract List<String> getAddressStreets();
 
+		@SQLQuery(value = "select street from address order by address_id", fetchSize = 1, maxRows = 1, timeout = 5)
+		public abstract List<String> getFirstAddressStreet();
+
 		@SQLUpdate("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)")
 		public abstract void createAddress(@BindObject Address address);
 
 		@SQLUpdate(value = "insert into address (address_id, street, city, state, zip) values (:addressId, :street, :city, :state, :zip)", keyQuery = "select 100")
 		public abstract Integer createAddressWith100KeyProvider(@BindObject Address address);
 
+		@SQLUpdate(value = "insert into address (address_id, street, city, state, zip) values (:addressId, :street, :city, :state, :zip)", keyProvider = BlockKeyProvider.class)
+		public abstract void createAddressesWithBlockKeyProvider(@BindObject Collection<Address> addresses);
+
 		@SQLUpdate(value = "select field from blah", keyQuery = "select 1")
 		public abstract void createObjWithKeyQueryPresentButGivenTypeHasNoKeyField(@BindObject String someStr);
 
@@ -148,6 +160,19 @@ public class TransactionalServiceTest extends DatabaseTest {
 		)
 		public abstract List<Integer> createAddressesWithKeysVarargs(@BindObject Address... addresses);
 
+		@SQLUpdate(
+			value = "insert into address (street, city, state, zip) values (:street, :city, :state, :zip)",
+			returnInfo = ReturnInfo.GENERATED_KEYS,
+			batchFlushSize = 2
+		)
+		public abstract List<Integer> createAddressesWithKeysInChunks(@BindObject Collection<Address> addresses);
+
+		@SQLUpdate(
+			value = "insert into address (street, city, state, zip) values (:street, :city, :state, :zip)",
+			returnInfo = ReturnInfo.GENERATED_KEYS
+		)
+		public abstract void createAddressesAndAssignKeys(@BindObject Collection<Address> addresses);
+
 		@SQLUpdate(
 			value = "insert into address (street, city, state, zip) values (:street, :city, :state, :zip)",
 			returnInfo = ReturnInfo.AFFECTED_ROWS
@@ -183,6 +208,29 @@ public class TransactionalServiceTest extends DatabaseTest {
 		assertEquals(2, service.countAddress());
 	}
 
+	@Test
+	public void readOnlyQueriesRunWithoutATransaction() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		SQLPlus sqlPlus = db.getSQLPlus();
+		QueryingService service = sqlPlus.createService(QueryingService.class);
+		assertEquals(1, service.countAddressReadOnly());
+		int countInTransaction = sqlPlus.transactAndReturn(session -> {
+			session.createQuery("insert into address (street, city, state, zip) values('Main Street', 'Bakersfield', 'CA', '54321')").executeUpdate();
+			return service.countAddressReadOnly();
+		});
+		assertEquals(2, countInTransaction); // Joins the open transaction, so sees its uncommitted insert
+	}
+
+	@Test
+	public void statementHintsAreAppliedFromTheAnnotation() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Main Street', 'Bakersfield', 'CA', '54321')"
+		);
+		List<String> streets = db.getSQLPlus().createService(QueryingService.class).getFirstAddressStreet();
+		assertEquals(Arrays.asList("Maple Street"), streets);
+	}
+
 	@Test
 	public void queryScalarCollection() throws Exception {
 
@@ -327,6 +375,113 @@ public class TransactionalServiceTest extends DatabaseTest {
 		assertEquals(new Integer(2), keys.get(1));
 	}
 	
+	public static class BlockKeyProvider extends HiLoKeyProvider<Integer> {
+
+		static final AtomicLong HI = new AtomicLong(1);
+
+		public BlockKeyProvider() {
+			super(session -> HI.getAndIncrement(), 10, Integer.class);
+		}
+
+	}
+
+	@Test
+	public void keyProviderShouldBeSharedAndAskedForAllKeysOfABatchAtOnce() throws Exception {
+
+		List<Address> addresses = new ArrayList<>();
+		for (int i = 0; i < 15; i++) {
+			Address address = new Address();
+			address.city = "city";
+			address.state = "state";
+			address.street = "street";
+			address.zip = "zip";
+			addresses.add(address);
+		}
+
+		QueryingService service = db.getSQLPlus().createService(QueryingService.class);
+		long firstHi = BlockKeyProvider.HI.get();
+		service.createAddressesWithBlockKeyProvider(addresses.subList(0, 5));
+		service.createAddressesWithBlockKeyProvider(addresses.subList(5, 15));
+
+		// The second call continues the block reserved by the first
+		assertEquals(firstHi + 2, BlockKeyProvider.HI.get());
+		for (int i = 0; i < 15; i++) {
+			assertEquals(new Integer((int) firstHi * 10 + i), addresses.get(i).addressId);
+		}
+		assertEquals(15, db.query("select address_id from address").length);
+	}
+
+	@Test
+	public void keyProvidersShouldNotBeSharedBetweenServices() throws Exception {
+
+		List<Address> addresses = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Address address = new Address();
+			address.city = "city";
+			address.state = "state";
+			address.street = "street";
+			address.zip = "zip";
+			addresses.add(address);
+		}
+
+		long firstHi = BlockKeyProvider.HI.get();
+		db.getSQLPlus().createService(QueryingService.class).createAddressesWithBlockKeyProvider(addresses.subList(0, 1));
+		db.getSQLPlus().createService(QueryingService.class).createAddressesWithBlockKeyProvider(addresses.subList(1, 2));
+
+		// Each service reserves a block of its own, rather than continuing the other's
+		assertEquals(firstHi + 2, BlockKeyProvider.HI.get());
+		assertEquals(new Integer((int) firstHi * 10), addresses.get(0).addressId);
+		assertEquals(new Integer((int) (firstHi + 1) * 10), addresses.get(1).addressId);
+	}
+
+	@Test
+	public void generatedKeysShouldBeAssignedToKeyFieldsOfBoundObjects() throws Exception {
+
+		List<Address> addresses = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			Address address = new Address();
+			address.city = "city-" + i;
+			address.state = "state";
+			address.street = "street";
+			address.zip = "zip";
+			addresses.add(address);
+		}
+
+		QueryingService service = db.getSQLPlus().createService(QueryingService.class);
+		service.createAddressesAndAssignKeys(addresses);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(new Integer(i + 1), addresses.get(i).addressId);
+		}
+
+		// Keys are assigned even when also returned
+		List<Integer> moreKeys = service.createAddressesWithKeys(addresses);
+
+		assertEquals(Arrays.asList(4, 5, 6), moreKeys);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(new Integer(i + 4), addresses.get(i).addressId);
+		}
+	}
+
+	@Test
+	public void updateMethodWithBatchFlushSizeShouldReturnKeysOfAllChunks() throws Exception {
+
+		List<Address> addresses = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			Address address = new Address();
+			address.city = "city-" + i;
+			address.state = "state";
+			address.street = "street";
+			address.zip = "zip";
+			addresses.add(address);
+		}
+
+		QueryingService service = db.getSQLPlus().createService(QueryingService.class);
+		List<Integer> keys = service.createAddressesWithKeysInChunks(addresses);
+
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), keys);
+		assertEquals(5, db.query("select city from address").length);
+	}
+
 	@Test
 	public void updateMethodShouldInsertAndReturnMultipleKeysWhenVarargsGiven() throws Exception {
 		
@@ -1,11 +1,28 @@
 package com.tyler.sqlplus.utility;
 
+import com.tyler.sqlplus.exception.ReflectionException;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
 import static org.junit.Assert.assertEquals;
 
 public class FieldsTest {
 
+	static class Person {
+
+		private String name;
+		private int age;
+
+		public String getName() {
+			return "Mr. " + name;
+		}
+
+	}
+
+	static class Employee extends Person {}
+
 	@Test
 	public void testExtractFieldName() throws Exception {
 		
@@ -35,6 +52,34 @@ public class FieldsTest {
 		assertEquals("testField", Fields.underscoreToCamelCase("TEST_FIELD"));
 	}
 
-}
+	@Test
+	public void getReadsThroughGetterDeclaredByInstanceClass() throws Exception {
+		Person person = new Person();
+		Field name = Person.class.getDeclaredField("name");
+		Fields.set(name, person, "Smith");
+		assertEquals("Mr. Smith", Fields.get(name, person));
+	}
 
+	@Test
+	public void getReadsFieldDirectlyWhenInstanceClassDeclaresNoGetter() throws Exception {
+		Employee employee = new Employee();
+		Field name = Person.class.getDeclaredField("name");
+		Fields.set(name, employee, "Smith");
+		assertEquals("Smith", Fields.get(name, employee));
+	}
+
+	@Test
+	public void setUnboxesPrimitiveFields() throws Exception {
+		Person person = new Person();
+		Fields.set(Person.class.getDeclaredField("age"), person, 30);
+		assertEquals(30, person.age);
+	}
 
+	@Test
+	public void setWrapsFailuresInReflectionException() throws Exception {
+		Field age = Person.class.getDeclaredField("age");
+		assertThrows(() -> Fields.set(age, new Person(), "thirty"), ReflectionException.class);
+		assertThrows(() -> Fields.set(age, new Person(), null), ReflectionException.class);
+	}
+
+}